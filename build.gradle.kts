@@ -77,6 +77,15 @@ dependencies {
     implementation("org.eclipse.jetty:jetty-server:12.0.17")
     implementation("org.eclipse.jetty.ee10:jetty-ee10-servlet:12.0.17")
     implementation("com.google.code.gson:gson:2.10.1")
+
+    /* Tests */
+    testImplementation("com.velocitypowered:velocity-api:3.4.0-SNAPSHOT") {
+        exclude(group = "org.spongepowered", module = "configurate-core")
+        exclude(group = "org.spongepowered", module = "configurate-yaml")
+    }
+    testImplementation(platform("org.junit:junit-bom:5.11.4"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
 /* Generate Version.java */
@@ -132,6 +141,10 @@ tasks.build {
     dependsOn("shadowJar")
 }
 
+tasks.test {
+    useJUnitPlatform()
+}
+
 /* Java Sources */
 sourceSets {
     main {
@@ -12,421 +12,298 @@
 
 package off.szymon.vmessage;
 
+import com.velocitypowered.api.command.CommandSource;
 import com.velocitypowered.api.proxy.Player;
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
-import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import net.kyori.adventure.text.minimessage.MiniMessage;
+import off.szymon.vmessage.bus.MessageEvent;
+import off.szymon.vmessage.channel.ChannelManager;
+import off.szymon.vmessage.channel.ChatChannel;
 import off.szymon.vmessage.compatibility.LuckPermsCompatibilityProvider;
 import off.szymon.vmessage.config.ConfigManager;
-import off.szymon.vmessage.onebot.OneBotClient;
+import off.szymon.vmessage.config.RuntimeConfig;
+import off.szymon.vmessage.format.LegacyTranscoder;
+import off.szymon.vmessage.format.MiniMessageGuard;
+import off.szymon.vmessage.format.PlaceholderResolver;
+import off.szymon.vmessage.format.PlaceholderType;
+import off.szymon.vmessage.format.PlayerPlaceholderResolver;
+import off.szymon.vmessage.format.RenderedMessage;
+import off.szymon.vmessage.pipeline.FanOut;
+import off.szymon.vmessage.pipeline.LoadGovernor;
+import off.szymon.vmessage.pipeline.NoticeCoalescer;
+import off.szymon.vmessage.session.PermissionIndex;
+import off.szymon.vmessage.session.PlayerSession;
 import org.jetbrains.annotations.Nullable;
-import org.spongepowered.configurate.CommentedConfigurationNode;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
-import java.util.regex.Pattern;
-import com.velocitypowered.api.scheduler.ScheduledTask;
+import java.util.UUID;
 
+/**
+ * Renders messages and sends them to the players, then publishes them on the event bus
+ * for everything else (OneBot, the chat log, metrics).
+ */
 public class Broadcaster {
 
-    private final HashMap<String,String> serverAliases; // Server name, Server alias
     private final LuckPermsCompatibilityProvider lp;
-    private final HashMap<String,String> metaPlaceholders; // Placeholder, Meta key
-    private OneBotClient oneBotClient;
-    // Pending leave messages (for delay and rejoin filtering)
-    private final ConcurrentHashMap<String, ScheduledTask> pendingLeaveTasks = new ConcurrentHashMap<>();
-    // Pattern for QQ at from game chat: @ + 5-11 digits, e.g. @1234567
-    // Note: this only supports pure numeric QQ ids; texts like test@1234567.com may be partially treated as QQ at.
-    private static final Pattern QQ_AT_PATTERN = Pattern.compile("@([0-9]{5,11})");
 
     public Broadcaster() {
-        serverAliases = new HashMap<>();
-        reloadAliases();
-
         /* LuckPerms */
         lp = VMessagePlugin.get().getLuckPermsCompatibilityProvider();
+    }
 
-        metaPlaceholders = new HashMap<>();
-        reloadMetaPlaceholders();
+    public void message(Player player, String message) {
+        RuntimeConfig config = ConfigManager.get().getRuntime();
+        RuntimeConfig.Chat chatConfig = config.chat();
+        if (!chatConfig.enabled()) return;
+
+        ChannelManager.Route route = new ChannelManager.Route(ChatChannel.GLOBAL, null, null);
+        RuntimeConfig.Channels channels = config.channels();
+        if (channels.enabled()) {
+            String prefix = channels.globalPrefix();
+            if (!prefix.isEmpty() && message.startsWith(prefix) && message.length() > prefix.length()) {
+                message = message.substring(prefix.length()).stripLeading();
+                if (message.isEmpty()) return;
+            } else {
+                ChannelManager channelManager = VMessagePlugin.get().getChannelManager();
+                route = channelManager.route(player, channelManager.getChannel(player.getUniqueId()));
+            }
+        }
 
-        /* OneBot */
-        if (ConfigManager.get().getConfig().getOnebot().getEnabled()) {
-            oneBotClient = new OneBotClient();
+        String processedMessage = processPlayerContent(player, message, chatConfig.allowLegacyColorCodes(), chatConfig.allowMiniMessage());
+        if (processedMessage == null) return;
+        //noinspection OptionalGetWithoutIsPresent
+        String server = config.parseAlias(player.getCurrentServer().get().getServerInfo().getName());
+
+        PlayerPlaceholderResolver resolver = new PlayerPlaceholderResolver(player, lp)
+                .with(PlaceholderType.MESSAGE, RenderedMessage.CONTENT_TAG)
+                .with(PlaceholderType.SERVER, server)
+                .with(PlaceholderType.CHANNEL, channels.name(route.channel(), route.group()));
+        RenderedMessage rendered = RenderedMessage.of(chatConfig.format().render(resolver), processedMessage);
+        // Online players ignoring the sender, almost always empty
+        Set<UUID> ignorers = VMessagePlugin.get().getIgnoreManager().getIgnorers(player.getUniqueId());
+        if (route.audience() == null && chatConfig.variants().isEmpty()) {
+            sendExcept(rendered.component(), ignorers);
+        } else {
+            Collection<Player> audience = route.audience() != null ? route.audience() : VMessagePlugin.get().getServer().getAllPlayers();
+            sendVariants(chatConfig, rendered, resolver, audience, ignorers);
         }
-    }
 
-    public void message(Player player, String message) {
-        if (!ConfigManager.get().getConfig().getMessages().getChat().getEnabled()) return;
+        String channel = switch (route.channel()) {
+            case GLOBAL -> null;
+            case GROUP -> route.group();
+            case LOCAL -> "local";
+        };
+        VMessagePlugin.get().getEventBus().publish(MessageEvent.chat(player.getUniqueId(), player.getUsername(), rendered, processedMessage, server, channel));
+    }
 
-        var chatConfig = ConfigManager.get().getConfig().getMessages().getChat();
-        String processedMessage = processMessageContent(message, chatConfig.getAllowLegacyColorCodes(), chatConfig.getAllowMiniMessage());
+    /**
+     * Sends the message to the console and every online player except the given ones, through the {@link FanOut}
+     */
+    public static void sendExcept(Component message, Set<UUID> excluded) {
+        VMessagePlugin.get().getFanOut().sendToAll(message, excluded);
+    }
 
-        String msg = ConfigManager.get().getConfig().getMessages().getChat().getFormat();
+    /**
+     * Splits the audience by the first format variant they have the permission for (looked up in the
+     * {@link PermissionIndex}), then renders every variant that has at least one player once and sends it to the whole group.
+     */
+    private void sendVariants(RuntimeConfig.Chat chatConfig, RenderedMessage rendered, PlaceholderResolver resolver, Collection<Player> audience, Set<UUID> ignorers) {
+        List<RuntimeConfig.FormatVariant> variants = chatConfig.variants();
+        List<List<Player>> groups = new ArrayList<>(variants.size());
+        for (int i = 0; i < variants.size(); i++) {
+            groups.add(new ArrayList<>());
+        }
+        List<Player> defaultGroup = new ArrayList<>();
+        PermissionIndex permissionIndex = VMessagePlugin.get().getPermissionIndex();
+        List<Set<Player>> variantAudiences = new ArrayList<>(variants.size());
+        for (RuntimeConfig.FormatVariant variant : variants) {
+            // Null right after a reload added the variant, until the index caught up
+            variantAudiences.add(permissionIndex.findAudience(variant.permission()));
+        }
 
-        //noinspection OptionalGetWithoutIsPresent
-        msg = msg
-                .replace("%player%", player.getUsername())
-                .replace("%message%", processedMessage)
-                .replace("%server%", parseAlias(player.getCurrentServer().get().getServerInfo().getName()));
-        if (lp != null) {
-            LuckPermsCompatibilityProvider.PlayerData data = lp.getMetaData(player);
-            msg = msg
-                    .replace("%suffix%", Optional.ofNullable(data.metaData().getSuffix()).orElse(""))
-                    .replace("%prefix%", Optional.ofNullable(data.metaData().getPrefix()).orElse(""));
-
-            for (Map.Entry<String,String> entry : metaPlaceholders.entrySet()) {
-                String metaValue = Optional.ofNullable(data.metaData().getMetaValue(entry.getValue())).orElse("");
-                msg = msg.replace(
-                        entry.getKey(),
-                        metaValue
-                );
+        VMessagePlugin.get().getServer().getConsoleCommandSource().sendMessage(rendered.component());
+        for (Player recipient : audience) {
+            if (!ignorers.isEmpty() && ignorers.contains(recipient.getUniqueId())) continue;
+            int group = -1;
+            for (int i = 0; i < variants.size(); i++) {
+                Set<Player> variantAudience = variantAudiences.get(i);
+                if (variantAudience != null ? variantAudience.contains(recipient) : recipient.hasPermission(variants.get(i).permission())) {
+                    group = i;
+                    break;
+                }
+            }
+            if (group == -1) {
+                defaultGroup.add(recipient);
+            } else {
+                groups.get(group).add(recipient);
             }
         }
-        VMessagePlugin.get().getServer().sendMessage(MiniMessage.miniMessage().deserialize(msg));
-        
-        // Send to OneBot/QQ group if enabled
-        if (oneBotClient != null && ConfigManager.get().getConfig().getOnebot().getForwardToQq().getChat()) {
-            String qqMessage = formatMessageForQQ("chat", player.getUsername(), processedMessage, parseAlias(player.getCurrentServer().get().getServerInfo().getName()), null);
-            oneBotClient.sendGroupMessage(qqMessage);
+
+        FanOut fanOut = VMessagePlugin.get().getFanOut();
+        fanOut.send(rendered.component(), defaultGroup);
+        for (int i = 0; i < variants.size(); i++) {
+            List<Player> group = groups.get(i);
+            if (group.isEmpty()) continue;
+            fanOut.send(rendered.withLine(variants.get(i).format().render(resolver)).component(), group);
         }
     }
 
     public void join(Player player) {
-        if (!ConfigManager.get().getConfig().getMessages().getJoin().getEnabled()) return;
+        //noinspection OptionalGetWithoutIsPresent
+        join(player, player.getCurrentServer().get().getServerInfo().getName());
+    }
+
+    /**
+     * @param serverName the server the player joined, captured when they connected
+     */
+    public void join(Player player, String serverName) {
+        RuntimeConfig config = ConfigManager.get().getRuntime();
+        if (!config.join().enabled()) return;
         if (player.hasPermission("vmessage.silent.join")) {
             VMessagePlugin.get().getLogger().info("{} has silent join permission, not broadcasting join message", player.getUsername());
             return;
         }
 
-        String msg = ConfigManager.get().getConfig().getMessages().getJoin().getFormat();
-        //noinspection OptionalGetWithoutIsPresent
-        msg = msg
-                .replace("%player%", player.getUsername())
-                .replace("%server%", parseAlias(player.getCurrentServer().get().getServerInfo().getName()));
-
-        if (lp != null) {
-            LuckPermsCompatibilityProvider.PlayerData data = lp.getMetaData(player);
-            msg = msg
-                    .replace("%suffix%", Optional.ofNullable(data.metaData().getSuffix()).orElse(""))
-                    .replace("%prefix%", Optional.ofNullable(data.metaData().getPrefix()).orElse(""));
-
-            for (Map.Entry<String,String> entry : metaPlaceholders.entrySet()) {
-                msg = msg.replace(
-                        entry.getKey(),
-                        Optional.ofNullable(data.metaData().getMetaValue(entry.getValue())).orElse("")
-                );
-            }
-        }
-        VMessagePlugin.get().getServer().sendMessage(MiniMessage.miniMessage().deserialize(msg));
-        
-        // Send to OneBot/QQ group if enabled (with rejoin filtering)
-        if (oneBotClient != null && ConfigManager.get().getConfig().getOnebot().getForwardToQq().getJoin()) {
-            String playerName = player.getUsername();
-            
-            // Check if there's a pending leave message (player rejoined during delay)
-            ScheduledTask pendingLeave = pendingLeaveTasks.remove(playerName);
-            if (pendingLeave != null) {
-                // Cancel leave message and filter out join message (fast rejoin)
-                pendingLeave.cancel();
-                VMessagePlugin.get().getLogger().debug("Cancelled pending leave message for {} and filtered join message due to fast rejoin", playerName);
-            } else {
-                // Normal join, send message
-                String qqMessage = formatMessageForQQ("join", playerName, null, parseAlias(player.getCurrentServer().get().getServerInfo().getName()), null);
-                oneBotClient.sendGroupMessage(qqMessage);
-            }
-        }
+        String server = config.parseAlias(serverName);
+        String msg = config.join().format().render(new PlayerPlaceholderResolver(player, lp)
+                .with(PlaceholderType.SERVER, server));
+        notice(config.componentCache().deserialize(msg), MessageEvent.notice(MessageEvent.Kind.JOIN,
+                player.getUniqueId(), player.getUsername(), server, null));
     }
 
     public void leave(Player player) {
-        if (!ConfigManager.get().getConfig().getMessages().getLeave().getEnabled()) return;
+        leave(player, player.getCurrentServer().map(server -> server.getServerInfo().getName()).orElse(null), null);
+    }
+
+    /**
+     * @param lastServer the server the player left from, captured when they disconnected
+     * @param session    the player's session, captured when they disconnected before it is dropped, or null to look it up
+     */
+    public void leave(Player player, @Nullable String lastServer, @Nullable PlayerSession session) {
+        RuntimeConfig config = ConfigManager.get().getRuntime();
+        if (!config.leave().enabled()) return;
         if (player.hasPermission("vmessage.silent.leave")) {
             VMessagePlugin.get().getLogger().info("{} has silent leave permission, not broadcasting leave message", player.getUsername());
             return;
         }
 
-        String msg = ConfigManager.get().getConfig().getMessages().getLeave().getFormat();
-        String serverName = player.getCurrentServer()
-                .map(server -> server.getServerInfo().getName())
-                .map(this::parseAlias)
-                .orElse(null);
-
-        if (serverName == null) {
+        if (lastServer == null) {
             return; // invalid server connection, do not send leave message
         }
+        String serverName = config.parseAlias(lastServer);
 
-        msg = msg
-                .replace("%player%", player.getUsername())
-                .replace("%server%", serverName);
-
-        if (lp != null) {
-            LuckPermsCompatibilityProvider.PlayerData data = lp.getMetaData(player);
-            msg = msg
-                    .replace("%suffix%", Optional.ofNullable(data.metaData().getSuffix()).orElse(""))
-                    .replace("%prefix%", Optional.ofNullable(data.metaData().getPrefix()).orElse(""));
-
-            for (Map.Entry<String,String> entry : metaPlaceholders.entrySet()) {
-                msg = msg.replace(
-                        entry.getKey(),
-                        Optional.ofNullable(data.metaData().getMetaValue(entry.getValue())).orElse("")
-                );
-            }
-        }
-        VMessagePlugin.get().getServer().sendMessage(MiniMessage.miniMessage().deserialize(msg));
-        
-        // Send to OneBot/QQ group if enabled (with delay for rejoin filtering)
-        if (oneBotClient != null && ConfigManager.get().getConfig().getOnebot().getForwardToQq().getLeave()) {
-            String playerName = player.getUsername();
-            int delay = ConfigManager.get().getConfig().getOnebot().getForwardToQq().getLeaveDelay() * 1000;
-            
-            // Prepare message
-            String qqMessage = formatMessageForQQ("leave", playerName, null, serverName, null);
-            
-            // Delay sending leave message (if player rejoins during delay, this will be cancelled)
-            ScheduledTask task = VMessagePlugin.get().getServer().getScheduler()
-                .buildTask(VMessagePlugin.get(), () -> {
-                    // Check if player rejoined during delay (task might have been cancelled)
-                    if (!pendingLeaveTasks.containsKey(playerName)) {
-                        return; // Task was cancelled due to rejoin
-                    }
-                    pendingLeaveTasks.remove(playerName);
-                    oneBotClient.sendGroupMessage(qqMessage);
-                })
-                .delay(delay, TimeUnit.MILLISECONDS)
-                .schedule();
-            
-            pendingLeaveTasks.put(playerName, task);
-            VMessagePlugin.get().getLogger().debug("Scheduled leave message for {} with {}ms delay", playerName, delay);
-        }
+        String msg = config.leave().format().render(new PlayerPlaceholderResolver(player, lp, session)
+                .with(PlaceholderType.SERVER, serverName));
+        notice(config.componentCache().deserialize(msg), MessageEvent.notice(MessageEvent.Kind.LEAVE,
+                player.getUniqueId(), player.getUsername(), serverName, null));
     }
 
     public void change(Player player, String oldServer) {
-        if (!ConfigManager.get().getConfig().getMessages().getChange().getEnabled()) return;
+        //noinspection OptionalGetWithoutIsPresent
+        change(player, oldServer, player.getCurrentServer().get().getServerInfo().getName());
+    }
+
+    /**
+     * @param newServerName the server the player switched to, captured when they connected
+     */
+    public void change(Player player, String oldServer, String newServerName) {
+        RuntimeConfig config = ConfigManager.get().getRuntime();
+        if (!config.change().enabled()) return;
         if (player.hasPermission("vmessage.silent.change")) {
             VMessagePlugin.get().getLogger().info("{} has silent change permission, not broadcasting change message", player.getUsername());
             return;
         }
 
-        String msg = ConfigManager.get().getConfig().getMessages().getChange().getFormat();
-        //noinspection OptionalGetWithoutIsPresent
-        msg = msg
-                .replace("%player%", player.getUsername())
-                .replace("%new_server%", parseAlias(player.getCurrentServer().get().getServerInfo().getName()))
-                .replace("%old_server%", parseAlias(oldServer));
-
-        if (lp != null) {
-            LuckPermsCompatibilityProvider.PlayerData data = lp.getMetaData(player);
-
-            msg = msg
-                    .replace("%suffix%", Optional.ofNullable(data.metaData().getSuffix()).orElse(""))
-                    .replace("%prefix%", Optional.ofNullable(data.metaData().getPrefix()).orElse(""));
-
-
-            for (Map.Entry<String,String> entry : metaPlaceholders.entrySet()) {
-                String metaValue = Optional.ofNullable(data.metaData().getMetaValue(entry.getValue())).orElse("DEBUG_VAL");
-                msg = msg.replace(
-                        entry.getKey(),
-                        metaValue
-                );
-            }
-        }
-        VMessagePlugin.get().getServer().sendMessage(MiniMessage.miniMessage().deserialize(msg));
-        
-        // Send to OneBot/QQ group if enabled
-        if (oneBotClient != null && ConfigManager.get().getConfig().getOnebot().getForwardToQq().getChange()) {
-            String newServer = parseAlias(player.getCurrentServer().get().getServerInfo().getName());
-            String qqMessage = formatMessageForQQ("change", player.getUsername(), null, newServer, parseAlias(oldServer));
-            oneBotClient.sendGroupMessage(qqMessage);
-        }
+        String newServer = config.parseAlias(newServerName);
+        String oldServerAlias = config.parseAlias(oldServer);
+        String msg = config.change().format().render(new PlayerPlaceholderResolver(player, lp)
+                .with(PlaceholderType.NEW_SERVER, newServer)
+                .with(PlaceholderType.OLD_SERVER, oldServerAlias));
+        notice(config.componentCache().deserialize(msg), MessageEvent.notice(MessageEvent.Kind.CHANGE,
+                player.getUniqueId(), player.getUsername(), newServer, oldServerAlias));
     }
 
-    public void reload() {
-        reloadAliases();
-        reloadMetaPlaceholders();
-    }
-
-    public void reloadAliases() {
-        serverAliases.clear();
-        Set<Map.Entry<Object, CommentedConfigurationNode>> aliases = ConfigManager.get().getNode("server-aliases").childrenMap().entrySet();
-        for (Map.Entry<Object, CommentedConfigurationNode> entry : aliases) {
-            serverAliases.put(entry.getKey().toString(),entry.getValue().getString(""));
-        }
-    }
-
-    public void reloadMetaPlaceholders() {
-        metaPlaceholders.clear();
-        if (lp != null) {
-            Set<Map.Entry<Object, CommentedConfigurationNode>> metas = ConfigManager.get().getNode("luck-perms-meta").childrenMap().entrySet();
-            for (Map.Entry<Object, CommentedConfigurationNode> entry : metas) {
-                metaPlaceholders.put("&"+entry.getKey().toString()+"&",entry.getValue().getString(""));
-            }
+    /**
+     * Sends a join, leave or change message and publishes it, unless the {@link NoticeCoalescer} holds it for a summary.
+     * While the {@link LoadGovernor} sheds them it is only published.
+     */
+    private void notice(Component message, MessageEvent event) {
+        if (!VMessagePlugin.get().getLoadGovernor().showsNotices()) {
+            VMessagePlugin.get().getEventBus().publish(event);
+            return;
         }
+        if (VMessagePlugin.get().getNoticeCoalescer().offer(message, event)) return;
+        sendExcept(message, Set.of());
+        VMessagePlugin.get().getEventBus().publish(event);
     }
 
     public void broadcast(String message, @Nullable Player player) {
-        var broadcastConfig = ConfigManager.get().getConfig().getCommands().getBroadcast();
+        RuntimeConfig config = ConfigManager.get().getRuntime();
+        RuntimeConfig.Broadcast broadcastConfig = config.broadcast();
         // MiniMessage is always allowed for console broadcasts
-        boolean allowMiniMessage = player != null ? broadcastConfig.getAllowMiniMessage() : true;
-        String processedMessage = processMessageContent(message, broadcastConfig.getAllowLegacyColorCodes(), allowMiniMessage);
-
-        String msg = ConfigManager.get().getConfig().getCommands().getBroadcast().getFormat();
+        boolean allowMiniMessage = player != null ? broadcastConfig.allowMiniMessage() : true;
+        String processedMessage = player != null
+                ? processPlayerContent(player, message, broadcastConfig.allowLegacyColorCodes(), allowMiniMessage)
+                : processMessageContent(message, broadcastConfig.allowLegacyColorCodes(), allowMiniMessage);
+        if (processedMessage == null) return;
 
+        String msg;
         if (player != null) {
-            msg = msg.replace("%message%", processedMessage);
-            msg = msg
-                .replace("%player%", player.getUsername())
-                .replace("%server%", parseAlias(player.getCurrentServer().get().getServerInfo().getName()));
-            if (lp != null) {
-                LuckPermsCompatibilityProvider.PlayerData data = lp.getMetaData(player);
-                msg = msg
-                        .replace("%suffix%", Optional.ofNullable(data.metaData().getSuffix()).orElse(""))
-                        .replace("%prefix%", Optional.ofNullable(data.metaData().getPrefix()).orElse(""));
-
-                for (Map.Entry<String,String> entry : metaPlaceholders.entrySet()) {
-                    String metaValue = Optional.ofNullable(data.metaData().getMetaValue(entry.getValue())).orElse("");
-                    msg = msg.replace(
-                            entry.getKey(),
-                            metaValue
-                    );
-                }
-            }
+            //noinspection OptionalGetWithoutIsPresent
+            msg = broadcastConfig.format().render(new PlayerPlaceholderResolver(player, lp)
+                    .with(PlaceholderType.MESSAGE, RenderedMessage.CONTENT_TAG)
+                    .with(PlaceholderType.SERVER, config.parseAlias(player.getCurrentServer().get().getServerInfo().getName())));
         } else {
-            msg = msg
-                .replace("%message%", processedMessage)
-                .replace("%player%", "Server")
-                .replace("%server%", "Server")
-                .replace("%suffix%", "")
-                .replace("%prefix%", "");
-            for (String key : metaPlaceholders.keySet()) {
-                msg = msg.replace(key, "");
-            }
+            msg = broadcastConfig.format().render((type, key) -> switch (type) {
+                case MESSAGE -> RenderedMessage.CONTENT_TAG;
+                case PLAYER, SERVER -> "Server";
+                case PREFIX, SUFFIX, META -> "";
+                case PROVIDER -> VMessagePlugin.get().getPlaceholderRegistry().resolve(key, null);
+                default -> null;
+            });
         }
 
-        VMessagePlugin.get().getServer().sendMessage(MiniMessage.miniMessage().deserialize(msg));
-        
-        // Send to OneBot/QQ group if enabled
-        if (oneBotClient != null && ConfigManager.get().getConfig().getOnebot().getForwardToQq().getBroadcast()) {
-            String qqMessage = formatMessageForQQ("broadcast", player != null ? player.getUsername() : "Server", processedMessage, null, null);
-            oneBotClient.sendGroupMessage(qqMessage);
-        }
-    }
+        RenderedMessage rendered = RenderedMessage.of(msg, processedMessage);
+        sendExcept(rendered.component(), Set.of());
 
-    public String parseAlias(String serverName) {
-        String output;
-        for (Map.Entry<String,String> entry : serverAliases.entrySet()) {
-            if (serverName.equalsIgnoreCase(entry.getKey())) {
-                output = entry.getValue();
-                return output;
-            }
-        }
-        return serverName;
+        VMessagePlugin.get().getEventBus().publish(MessageEvent.message(MessageEvent.Kind.BROADCAST,
+                player != null ? player.getUniqueId() : null, player != null ? player.getUsername() : "Server", rendered, processedMessage, null));
     }
 
-    public HashMap<String, String> getMetaPlaceholders() {
-        return metaPlaceholders;
+    public String parseAlias(String serverName) {
+        return ConfigManager.get().getRuntime().parseAlias(serverName);
     }
 
     /**
-     * Process message content: optionally parse legacy & codes, then optionally escape MiniMessage tags.
-     * Step 1: if allowLegacyColorCodes, deserialize with LegacyComponentSerializer.legacyAmpersand() and serialize to MiniMessage string.
-     * Step 2: if !allowMiniMessage, escapeTags on the result.
+     * Process message content: optionally turn legacy & codes into MiniMessage tags, and escape player typed tags
+     * unless MiniMessage is allowed. See {@link LegacyTranscoder}.
      */
     public String processMessageContent(String input, boolean allowLegacyColorCodes, boolean allowMiniMessage) {
-        if (input == null) return "";
-        String result = input;
-        if (allowLegacyColorCodes) {
-            try {
-                Component component = LegacyComponentSerializer.legacyAmpersand().deserialize(input);
-                result = MiniMessage.miniMessage().serialize(component);
-            } catch (Exception ignored) {
-                // keep result as input
-            }
-        }
-        if (!allowMiniMessage) {
-            result = MiniMessage.miniMessage().escapeTags(result);
-        }
-        return result;
+        return LegacyTranscoder.transcode(input, allowLegacyColorCodes, allowMiniMessage);
     }
 
     /**
-     * Convert in-game @QQ patterns (e.g. @2483654847) into QQ group at CQ codes for OneBot/NapCat.
-     * <p>
-     * Only pure numeric QQ ids are supported. This may affect strings like "test@1234567.com",
-     * whose "@1234567" part will be interpreted as a QQ at.
+     * {@link #processMessageContent} for content typed by a command source. When MiniMessage is allowed, what a player
+     * typed is first checked by the {@link MiniMessageGuard} so expensive markup never reaches the parser.
+     *
+     * @return the processed content, or null if the guard rejected it (the sender has already been told why)
      */
-    private String convertGameAtToQqAt(String message) {
-        if (message == null || message.isEmpty()) {
-            return message;
-        }
-        return QQ_AT_PATTERN.matcher(message).replaceAll("[CQ:at,qq=$1]");
-    }
-
-    private String formatMessageForQQ(String type, String player, String message, String server, String oldServer) {
-        var formatConfig = ConfigManager.get().getConfig().getOnebot().getForwardToQq().getFormat();
-        String format;
-        
-        switch (type) {
-            case "chat":
-                format = formatConfig.getChat();
-                break;
-            case "join":
-                format = formatConfig.getJoin();
-                break;
-            case "leave":
-                format = formatConfig.getLeave();
-                break;
-            case "change":
-                format = formatConfig.getChange();
-                break;
-            case "broadcast":
-                format = formatConfig.getBroadcast();
-                break;
-            default:
-                return "";
-        }
-        
-        // Replace placeholders
-        if (player != null) {
-            format = format.replace("%player%", player);
-        }
-        if (message != null) {
-            String qqMessage = message;
-            if (ConfigManager.get().getConfig().getOnebot().getStripFormattingInQq()) {
-                try {
-                    Component component = MiniMessage.miniMessage().deserialize(message);
-                    qqMessage = PlainTextComponentSerializer.plainText().serialize(component);
-                } catch (Exception e) {
-                    qqMessage = MiniMessage.miniMessage().stripTags(message);
+    public @Nullable String processPlayerContent(CommandSource sender, String input, boolean allowLegacyColorCodes, boolean allowMiniMessage) {
+        if (allowMiniMessage && input != null && sender instanceof Player) {
+            RuntimeConfig config = ConfigManager.get().getRuntime();
+            MiniMessageGuard guard = config.miniMessageGuard();
+            String reason = guard.check(input, tag -> sender.hasPermission("vmessage.minimessage." + tag));
+            if (reason != null) {
+                if (guard.getAction() == MiniMessageGuard.Action.REJECT) {
+                    sender.sendRichMessage(config.guardRejectedMessage().replace("%reason%", MiniMessage.miniMessage().escapeTags(reason)));
+                    return null;
                 }
+                allowMiniMessage = false; // Degrade to escaped text
             }
-            // Convert in-game @QQ to CQ at codes before sending to QQ group
-            qqMessage = convertGameAtToQqAt(qqMessage);
-            format = format.replace("%message%", qqMessage);
-        }
-        if (server != null) {
-            format = format.replace("%server%", server);
-            format = format.replace("%new_server%", server);
-        }
-        if (oldServer != null) {
-            format = format.replace("%old_server%", oldServer);
-        }
-        
-        // Remove any remaining placeholders
-        format = format.replaceAll("%[a-z_]+%", "");
-        
-        return format;
-    }
-
-    public void reloadOneBot() {
-        if (ConfigManager.get().getConfig().getOnebot().getEnabled()) {
-            // Always recreate to pick up config changes (groupId, apiUrl, accessToken)
-            oneBotClient = new OneBotClient();
-        } else {
-            oneBotClient = null;
         }
+        return processMessageContent(input, allowLegacyColorCodes, allowMiniMessage);
     }
 }
@@ -18,13 +18,18 @@ import com.velocitypowered.api.event.player.PlayerChatEvent;
 import com.velocitypowered.api.event.player.ServerPostConnectEvent;
 import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.proxy.server.RegisteredServer;
-import net.kyori.adventure.text.minimessage.MiniMessage;
-import off.szymon.vmessage.compatibility.LuckPermsCompatibilityProvider;
 import off.szymon.vmessage.compatibility.mute.MutePluginCompatibilityProvider;
 import off.szymon.vmessage.config.ConfigManager;
+import off.szymon.vmessage.config.RuntimeConfig;
+import off.szymon.vmessage.format.PlaceholderType;
+import off.szymon.vmessage.format.PlayerPlaceholderResolver;
+import off.szymon.vmessage.session.PlayerSession;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class Listener {
 
@@ -35,69 +40,92 @@ public class Listener {
 
         Player player = e.getPlayer();
 
-        MutePluginCompatibilityProvider mpcp = VMessagePlugin.get().getMutePluginCompatibilityProvider();
-
-        mpcp.isMuted(player).thenAcceptAsync(isMuted -> {
-            if (isMuted) {
-                mpcp.getMute(player).thenAcceptAsync(mute -> {
-                    Broadcaster broadcaster = VMessagePlugin.get().getBroadcaster();
-
-                    String msg = ConfigManager.get().getConfig().getMessages().getChat().getMutedMessage();
-                    String serverName = player.getCurrentServer()
-                            .map(server -> broadcaster.parseAlias(server.getServerInfo().getName()))
-                            .orElse("Unknown");
-
-                    String reason = mute.reason();
-                    String endDate = mute.endDateString();
-                    String moderator = mute.moderator();
-
-                    msg = msg
-                            .replace("%player%", player.getUsername())
-                            .replace("%message%", e.getMessage())
-                            .replace("%server%", serverName)
-                            .replace("%reason%", reason)
-                            .replace("%end-date%", endDate)
-                            .replace("%moderator%", moderator);
-
-                    LuckPermsCompatibilityProvider lp = VMessagePlugin.get().getLuckPermsCompatibilityProvider();
-
-                    if (lp != null) {
-                        LuckPermsCompatibilityProvider.PlayerData data = lp.getMetaData(player);
-                        msg = msg
-                                .replace("%suffix%", Optional.ofNullable(data.metaData().getSuffix()).orElse(""))
-                                .replace("%prefix%", Optional.ofNullable(data.metaData().getPrefix()).orElse(""));
-
-                        for (Map.Entry<String, String> entry : broadcaster.getMetaPlaceholders().entrySet()) {
-                            msg = msg.replace(
-                                    entry.getKey(),
-                                    Optional.ofNullable(data.metaData().getMetaValue(entry.getValue())).orElse("")
-                            );
-                        }
-                    }
-                    player.sendMessage(MiniMessage.miniMessage().deserialize(msg));
-                });
-            } else {
-                VMessagePlugin.get().getBroadcaster().message(e.getPlayer(), e.getMessage());
+        // The player's messages go through one lane in order, the mute lookup included
+        if (!VMessagePlugin.get().getChatPipeline().submit(player.getUniqueId(), () -> handleChat(e))) {
+            player.sendRichMessage(ConfigManager.get().getRuntime().chatPipeline().busyMessage());
+        }
+    }
+
+    private void handleChat(PlayerChatEvent e) {
+        // Served from the cache when the player's mute state is known, otherwise looked up once.
+        // The player's later messages wait behind this one, but the lane goes on with other players meanwhile.
+        CompletableFuture<Optional<MutePluginCompatibilityProvider.Mute>> mute = VMessagePlugin.get().getMuteCache().get(e.getPlayer());
+        if (mute.isDone()) {
+            Optional<MutePluginCompatibilityProvider.Mute> muteOpt = null;
+            Throwable failure = null;
+            try {
+                muteOpt = mute.join();
+            } catch (CompletionException | CancellationException ex) {
+                failure = ex;
             }
-        });
+            handleChat(e, muteOpt, failure);
+        } else {
+            VMessagePlugin.get().getChatPipeline().await(e.getPlayer().getUniqueId(), mute, (muteOpt, failure) -> handleChat(e, muteOpt, failure));
+        }
+    }
+
+    private void handleChat(PlayerChatEvent e, @Nullable Optional<MutePluginCompatibilityProvider.Mute> muteOpt, @Nullable Throwable failure) {
+        Player player = e.getPlayer();
+        RuntimeConfig config = ConfigManager.get().getRuntime();
+        if (failure != null) {
+            // on-failure: BLOCK, the lookup failed or timed out
+            player.sendRichMessage(config.muteLookup().failedMessage());
+            return;
+        }
+        if (muteOpt.isPresent()) {
+            MutePluginCompatibilityProvider.Mute mute = muteOpt.get();
+            Broadcaster broadcaster = VMessagePlugin.get().getBroadcaster();
+
+            String serverName = player.getCurrentServer()
+                    .map(server -> broadcaster.parseAlias(server.getServerInfo().getName()))
+                    .orElse("Unknown");
+
+            String msg = config.chat().mutedMessage().render(
+                    new PlayerPlaceholderResolver(player, VMessagePlugin.get().getLuckPermsCompatibilityProvider())
+                            .with(PlaceholderType.MESSAGE, e.getMessage())
+                            .with(PlaceholderType.SERVER, serverName)
+                            .with(PlaceholderType.REASON, mute.reason())
+                            .with(PlaceholderType.END_DATE, mute.endDateString())
+                            .with(PlaceholderType.MODERATOR, mute.moderator())
+            );
+            player.sendMessage(config.componentCache().deserialize(msg));
+        } else if (VMessagePlugin.get().getStaffChat().isToggled(player)) {
+            VMessagePlugin.get().getStaffChat().send(player, e.getMessage());
+        } else {
+            VMessagePlugin.get().getBroadcaster().message(player, e.getMessage());
+        }
     }
 
+    // Join, leave and change messages are rendered on the player's chat lane so the connection never waits on
+    // formatting or fan-out. What can change in the meantime (the player's server, the session dropped on
+    // disconnect) is captured here first.
+
     @Subscribe
     private void onPlayerLeave(DisconnectEvent e) {
-        try {
-            VMessagePlugin.get().getBroadcaster().leave(e.getPlayer());
-        } catch (Exception ex) {
-            VMessagePlugin.get().getLogger().error("Error while broadcasting player leave event: {}", ex.getMessage());
-        }
+        Player player = e.getPlayer();
+        String lastServer = player.getCurrentServer().map(server -> server.getServerInfo().getName()).orElse(null);
+        // SessionManager drops it at PostOrder.LAST, rebuilding it on the lane could miss LuckPerms data already unloaded
+        PlayerSession session = VMessagePlugin.get().getSessionManager().find(player.getUniqueId()).orElse(null);
+        submitNotice(player, () -> VMessagePlugin.get().getBroadcaster().leave(player, lastServer, session));
     }
 
     @Subscribe
     private void onPlayerConnect(ServerPostConnectEvent e) {
+        Player player = e.getPlayer();
         RegisteredServer pre = e.getPreviousServer();
+        String serverName = player.getCurrentServer().map(server -> server.getServerInfo().getName()).orElse(null);
+        if (serverName == null) return;
         if (pre == null) {
-            VMessagePlugin.get().getBroadcaster().join(e.getPlayer());
+            submitNotice(player, () -> VMessagePlugin.get().getBroadcaster().join(player, serverName));
         } else {
-            VMessagePlugin.get().getBroadcaster().change(e.getPlayer(),pre.getServerInfo().getName());
+            String previousName = pre.getServerInfo().getName();
+            submitNotice(player, () -> VMessagePlugin.get().getBroadcaster().change(player, previousName, serverName));
+        }
+    }
+
+    private static void submitNotice(Player player, Runnable notice) {
+        if (!VMessagePlugin.get().getChatPipeline().submit(player.getUniqueId(), notice)) {
+            VMessagePlugin.get().getLogger().warn("Chat lane is full, dropped a join/leave/change message for {}", player.getUsername());
         }
     }
 
@@ -25,14 +25,35 @@ import com.velocitypowered.api.plugin.Plugin;
 import com.velocitypowered.api.plugin.PluginContainer;
 import com.velocitypowered.api.plugin.annotation.DataDirectory;
 import com.velocitypowered.api.proxy.ProxyServer;
+import off.szymon.vmessage.bus.ChatLogSink;
+import off.szymon.vmessage.bus.EventBus;
+import off.szymon.vmessage.bus.MetricsSink;
+import off.szymon.vmessage.channel.ChannelManager;
 import off.szymon.vmessage.cmd.CommandHandler;
 import off.szymon.vmessage.compatibility.LuckPermsCompatibilityProvider;
 import off.szymon.vmessage.compatibility.mute.EmptyMuteCompatibilityProvider;
 import off.szymon.vmessage.compatibility.mute.LibertyBansCompatibilityProvider;
 import off.szymon.vmessage.compatibility.mute.LiteBansCompatibilityProvider;
+import off.szymon.vmessage.compatibility.mute.MuteCache;
+import off.szymon.vmessage.compatibility.mute.MuteLookupExecutor;
 import off.szymon.vmessage.compatibility.mute.MutePluginCompatibilityProvider;
 import off.szymon.vmessage.config.ConfigManager;
+import off.szymon.vmessage.ignore.IgnoreManager;
+import off.szymon.vmessage.inbox.OfflineInbox;
 import off.szymon.vmessage.onebot.OneBotListener;
+import off.szymon.vmessage.onebot.OneBotSink;
+import off.szymon.vmessage.pipeline.ChatPipeline;
+import off.szymon.vmessage.pipeline.FanOut;
+import off.szymon.vmessage.pipeline.LoadGovernor;
+import off.szymon.vmessage.pipeline.NoticeCoalescer;
+import off.szymon.vmessage.placeholder.BuiltinPlaceholders;
+import off.szymon.vmessage.placeholder.PlaceholderRegistry;
+import off.szymon.vmessage.session.ConversationRegistry;
+import off.szymon.vmessage.session.PermissionIndex;
+import off.szymon.vmessage.session.PlayerNameIndex;
+import off.szymon.vmessage.session.SessionManager;
+import off.szymon.vmessage.staff.SocialSpy;
+import off.szymon.vmessage.staff.StaffChat;
 import org.bstats.charts.AdvancedPie;
 import org.bstats.charts.SimplePie;
 import org.bstats.velocity.Metrics;
@@ -47,6 +68,7 @@ import java.net.URI;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 @Plugin(
         id = "vmessage",
@@ -73,10 +95,30 @@ public class VMessagePlugin {
     private final PluginContainer plugin;
     private final String name;
     private MutePluginCompatibilityProvider mutePluginCompatibilityProvider;
+    private MuteLookupExecutor muteLookupExecutor;
+    private MuteCache muteCache;
     private LuckPermsCompatibilityProvider lpCompatibilityProvider;
+    private EventBus eventBus;
+    private OneBotSink oneBotSink;
+    private MetricsSink metricsSink;
     private Broadcaster broadcaster;
+    private ChatPipeline chatPipeline;
+    private FanOut fanOut;
+    private NoticeCoalescer noticeCoalescer;
+    private LoadGovernor loadGovernor;
     private OneBotListener oneBotListener;
+    private PlaceholderRegistry placeholderRegistry;
+    private SessionManager sessionManager;
+    private ConversationRegistry conversationRegistry;
+    private PlayerNameIndex playerNameIndex;
+    private IgnoreManager ignoreManager;
+    private ChannelManager channelManager;
+    private PermissionIndex permissionIndex;
+    private StaffChat staffChat;
+    private SocialSpy socialSpy;
+    private OfflineInbox offlineInbox;
     private final Metrics.Factory metricsFactory;
+    private final Executor asyncExecutor;
 
     @Inject
     public VMessagePlugin(ProxyServer server, Logger logger, @DataDirectory Path dataFolder, PluginContainer plugin, Metrics.Factory metricsFactory) {
@@ -87,6 +129,7 @@ public class VMessagePlugin {
         this.dataFolder = new File(dataFolder.toFile().getParentFile(), this.getClass().getAnnotation(Plugin.class).name());
         this.plugin = plugin;
         this.metricsFactory = metricsFactory;
+        this.asyncExecutor = task -> server.getScheduler().buildTask(this, task).schedule();
 
         this.name = this.getClass().getAnnotation(Plugin.class).name();
     }
@@ -125,6 +168,8 @@ public class VMessagePlugin {
         }
 
         /* Mute Plugin Compatibility */
+        var muteLookup = ConfigManager.get().getConfig().getPerformance().getMuteLookup();
+        muteLookupExecutor = new MuteLookupExecutor(muteLookup.getThreads(), muteLookup.getQueueSize());
         Map<String, String> mutePlugins = Map.of("libertybans", "LibertyBans","litebans", "LiteBans");
         mutePluginCompatibilityProvider = new EmptyMuteCompatibilityProvider();
         logger.info("Checking for mute plugin compatibility...");
@@ -139,7 +184,7 @@ public class VMessagePlugin {
                             mutePluginCompatibilityProvider = new LibertyBansCompatibilityProvider();
                             break;
                         case "litebans":
-                            mutePluginCompatibilityProvider = new LiteBansCompatibilityProvider();
+                            mutePluginCompatibilityProvider = new LiteBansCompatibilityProvider(muteLookupExecutor);
                             break;
                     }
                     logger.info("Successfully hooked into {}", displayName);
@@ -153,7 +198,56 @@ public class VMessagePlugin {
             }
         }
 
+        muteCache = new MuteCache(mutePluginCompatibilityProvider, muteLookupExecutor);
+        server.getEventManager().register(this, muteCache);
+
+        /* Placeholders */
+        placeholderRegistry = new PlaceholderRegistry();
+        BuiltinPlaceholders.registerAll(placeholderRegistry);
+
+        /* Player Sessions */
+        sessionManager = new SessionManager();
+        server.getEventManager().register(this, sessionManager);
+        conversationRegistry = new ConversationRegistry();
+        server.getEventManager().register(this, conversationRegistry);
+        playerNameIndex = new PlayerNameIndex();
+        server.getEventManager().register(this, playerNameIndex);
+        ignoreManager = new IgnoreManager();
+        server.getEventManager().register(this, ignoreManager);
+        channelManager = new ChannelManager();
+        server.getEventManager().register(this, channelManager);
+        permissionIndex = new PermissionIndex();
+        server.getEventManager().register(this, permissionIndex);
+        staffChat = new StaffChat();
+        server.getEventManager().register(this, staffChat);
+        socialSpy = new SocialSpy();
+        try {
+            offlineInbox = new OfflineInbox();
+            server.getEventManager().register(this, offlineInbox);
+        } catch (Exception e) {
+            offlineInbox = null;
+            logger.error("Failed to load the offline message inbox, disabling offline messages: {}", e.getMessage());
+        }
+
+        /* Event Bus */
+        var busConfig = ConfigManager.get().getConfig().getPerformance().getEventBus();
+        eventBus = new EventBus(busConfig.getBufferSize(), busConfig.getMaxBatch());
+        oneBotSink = new OneBotSink();
+        eventBus.addSink(oneBotSink);
+        metricsSink = new MetricsSink();
+        eventBus.addSink(metricsSink);
+        eventBus.addSink(new ChatLogSink());
+
+        var fanOutConfig = ConfigManager.get().getConfig().getPerformance().getFanOut();
+        fanOut = new FanOut(fanOutConfig.getThreads() > 0 ? fanOutConfig.getThreads() : Runtime.getRuntime().availableProcessors());
+        noticeCoalescer = new NoticeCoalescer();
         broadcaster = new Broadcaster();
+        var pipelineConfig = ConfigManager.get().getConfig().getPerformance().getChatPipeline();
+        chatPipeline = new ChatPipeline(
+                pipelineConfig.getLanes() > 0 ? pipelineConfig.getLanes() : Runtime.getRuntime().availableProcessors(),
+                pipelineConfig.getQueueSize()
+        );
+        loadGovernor = new LoadGovernor(chatPipeline, fanOut);
         server.getEventManager().register(this, new Listener());
 
         /* OneBot Integration */
@@ -162,7 +256,7 @@ public class VMessagePlugin {
             try {
                 oneBotListener = new OneBotListener();
                 oneBotListener.start();
-                broadcaster.reloadOneBot();
+                oneBotSink.reload();
                 logger.info("OneBot integration initialized successfully");
             } catch (Exception e) {
                 logger.error("Failed to initialize OneBot integration: {}", e.getMessage(), e);
@@ -208,6 +302,24 @@ public class VMessagePlugin {
         if (oneBotListener != null) {
             oneBotListener.stop();
         }
+        if (chatPipeline != null) {
+            chatPipeline.shutdown();
+        }
+        if (noticeCoalescer != null) {
+            noticeCoalescer.shutdown();
+        }
+        if (loadGovernor != null) {
+            loadGovernor.shutdown();
+        }
+        if (fanOut != null) {
+            fanOut.shutdown();
+        }
+        if (muteLookupExecutor != null) {
+            muteLookupExecutor.shutdown();
+        }
+        if (eventBus != null) {
+            eventBus.shutdown();
+        }
         System.out.println(this.name + " disabled");
     }
 
@@ -236,10 +348,100 @@ public class VMessagePlugin {
         return mutePluginCompatibilityProvider;
     }
 
+    public MuteCache getMuteCache() {
+        return muteCache;
+    }
+
+    public ChatPipeline getChatPipeline() {
+        return chatPipeline;
+    }
+
+    public FanOut getFanOut() {
+        return fanOut;
+    }
+
+    public NoticeCoalescer getNoticeCoalescer() {
+        return noticeCoalescer;
+    }
+
+    public LoadGovernor getLoadGovernor() {
+        return loadGovernor;
+    }
+
+    public MuteLookupExecutor getMuteLookupExecutor() {
+        return muteLookupExecutor;
+    }
+
+    /**
+     * Runs tasks on Velocity's scheduler, for work that should not stay on the thread that completed a future
+     */
+    public Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * Other plugins can add their own sinks here
+     */
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
+    public OneBotSink getOneBotSink() {
+        return oneBotSink;
+    }
+
+    public MetricsSink getMetricsSink() {
+        return metricsSink;
+    }
+
     public Broadcaster getBroadcaster() {
         return broadcaster;
     }
 
+    /**
+     * Other plugins can register their own placeholders here
+     */
+    public PlaceholderRegistry getPlaceholderRegistry() {
+        return placeholderRegistry;
+    }
+
+    public SessionManager getSessionManager() {
+        return sessionManager;
+    }
+
+    public ConversationRegistry getConversationRegistry() {
+        return conversationRegistry;
+    }
+
+    public PlayerNameIndex getPlayerNameIndex() {
+        return playerNameIndex;
+    }
+
+    public IgnoreManager getIgnoreManager() {
+        return ignoreManager;
+    }
+
+    public ChannelManager getChannelManager() {
+        return channelManager;
+    }
+
+    public PermissionIndex getPermissionIndex() {
+        return permissionIndex;
+    }
+
+    public StaffChat getStaffChat() {
+        return staffChat;
+    }
+
+    public SocialSpy getSocialSpy() {
+        return socialSpy;
+    }
+
+    @Nullable("If the inbox could not be loaded, this will return null")
+    public OfflineInbox getOfflineInbox() {
+        return offlineInbox;
+    }
+
     public OneBotListener getOneBotListener() {
         return oneBotListener;
     }
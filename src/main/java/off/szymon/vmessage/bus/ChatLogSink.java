@@ -0,0 +1,96 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.bus;
+
+import off.szymon.vmessage.VMessagePlugin;
+import off.szymon.vmessage.config.ConfigManager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Appends every event to {@code chat.log} while {@code event-bus.chat-log} is enabled, flushing once per batch
+ */
+public class ChatLogSink implements EventSink {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private final Path file;
+    private BufferedWriter writer;
+
+    public ChatLogSink() {
+        file = VMessagePlugin.get().getDataFolder().toPath().resolve("chat.log");
+    }
+
+    @Override
+    public String getName() {
+        return "Chat Log";
+    }
+
+    @Override
+    public void onEvents(List<MessageEvent> events) throws IOException {
+        if (!ConfigManager.get().getRuntime().chatLog()) {
+            close();
+            return;
+        }
+        if (writer == null) {
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        }
+        try {
+            for (MessageEvent event : events) {
+                writer.write(line(event));
+                writer.newLine();
+            }
+            writer.flush();
+        } catch (IOException e) {
+            close(); // Opened again for the next batch
+            throw e;
+        }
+    }
+
+    private static String line(MessageEvent event) {
+        StringBuilder line = new StringBuilder(96)
+                .append('[').append(TIME_FORMAT.format(Instant.ofEpochMilli(event.time()))).append("] [")
+                .append(event.kind()).append("] ");
+        if (event.server() != null) line.append('[').append(event.server()).append("] ");
+        if (event.channel() != null) line.append('(').append(event.channel()).append(") ");
+        line.append(event.isSummary() ? event.count() + " players" : event.sender());
+        switch (event.kind()) {
+            case CHAT, BROADCAST, QQ -> line.append(": ").append(event.plainContent());
+            case JOIN -> line.append(" joined");
+            case LEAVE -> line.append(" left");
+            case CHANGE -> line.append(" switched from ").append(event.oldServer());
+        }
+        return line.toString();
+    }
+
+    @Override
+    public void close() {
+        if (writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            VMessagePlugin.get().getLogger().warn("Failed to close the chat log: {}", e.getMessage());
+        }
+        writer = null;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.bus;
+
+import off.szymon.vmessage.VMessagePlugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands every shown message to the {@link EventSink}s through a fixed size ring buffer.
+ * <p>
+ * Publishing claims the next sequence number, stores the event in its slot and wakes up the sinks that are
+ * waiting, it never blocks. Each sink has its own thread that follows the ring at its own pace and takes all
+ * events published since its last batch at once. A sink that falls a whole ring behind skips what was
+ * overwritten (counted as dropped), so a slow sink like a stalled OneBot API never holds up chat.
+ */
+public class EventBus {
+
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Slot[] ring;
+    private final int mask;
+    private final int maxBatch;
+    private final AtomicLong next = new AtomicLong();
+    private final List<SinkRunner> sinks = new CopyOnWriteArrayList<>();
+    private volatile boolean running = true;
+
+    /**
+     * @param bufferSize how many events the ring holds, rounded up to a power of two
+     * @param maxBatch   the most events handed to a sink at once
+     */
+    public EventBus(int bufferSize, int maxBatch) {
+        int size = Integer.highestOneBit(Math.max(2, bufferSize) - 1) << 1;
+        ring = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Slot();
+        }
+        mask = size - 1;
+        this.maxBatch = Math.max(1, maxBatch);
+    }
+
+    /**
+     * Starts a thread for the sink, it receives the events published from now on
+     */
+    public void addSink(EventSink sink) {
+        SinkRunner runner = new SinkRunner(sink, next.get());
+        sinks.add(runner);
+        runner.thread.start();
+    }
+
+    public void publish(MessageEvent event) {
+        if (!running) return;
+        long sequence = next.getAndIncrement();
+        Slot slot = ring[(int) (sequence & mask)];
+        // Readers that see the old sequence before and after reading the event know they read the old event
+        slot.sequence = -1;
+        slot.event = event;
+        slot.sequence = sequence;
+        for (SinkRunner runner : sinks) {
+            if (runner.waiting) LockSupport.unpark(runner.thread);
+        }
+    }
+
+    public int getBufferSize() {
+        return ring.length;
+    }
+
+    public long getPublished() {
+        return next.get();
+    }
+
+    public List<SinkStats> getSinkStats() {
+        long published = next.get();
+        List<SinkStats> stats = new ArrayList<>(sinks.size());
+        for (SinkRunner runner : sinks) {
+            stats.add(new SinkStats(runner.sink.getName(), Math.max(0, published - runner.sequence), runner.handled, runner.dropped));
+        }
+        return stats;
+    }
+
+    /**
+     * Stops the sinks once they have handled what was already published
+     */
+    public void shutdown() {
+        running = false;
+        for (SinkRunner runner : sinks) {
+            LockSupport.unpark(runner.thread);
+        }
+        for (SinkRunner runner : sinks) {
+            try {
+                runner.thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param lag how many published events the sink has not handled yet
+     */
+    public record SinkStats(String name, long lag, long handled, long dropped) {}
+
+    private static final class Slot {
+        volatile long sequence = -1;
+        volatile MessageEvent event;
+    }
+
+    private final class SinkRunner implements Runnable {
+
+        private final EventSink sink;
+        private final Thread thread;
+        private final List<MessageEvent> batch = new ArrayList<>();
+        // Only written by the sink's thread
+        private volatile long sequence;
+        private volatile long handled;
+        private volatile long dropped;
+        private volatile boolean waiting;
+
+        SinkRunner(EventSink sink, long start) {
+            this.sink = sink;
+            this.sequence = start;
+            thread = new Thread(this, "vMessage Event Sink (" + sink.getName() + ")");
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                boolean stopping = !running;
+                fill();
+                if (!batch.isEmpty()) {
+                    deliver();
+                    continue;
+                }
+                if (stopping) break;
+                waiting = true;
+                if (!available()) LockSupport.parkNanos(this, PARK_NANOS);
+                waiting = false;
+            }
+            try {
+                sink.close();
+            } catch (Throwable t) {
+                VMessagePlugin.get().getLogger().error("Error while closing the {} event sink: {}", sink.getName(), t.getMessage(), t);
+            }
+        }
+
+        private boolean available() {
+            return ring[(int) (sequence & mask)].sequence == sequence || next.get() - sequence > ring.length;
+        }
+
+        /**
+         * Takes the events that are ready, up to the batch size
+         */
+        private void fill() {
+            long seq = sequence;
+            while (batch.size() < maxBatch) {
+                Slot slot = ring[(int) (seq & mask)];
+                long stamp = slot.sequence;
+                if (stamp == seq) {
+                    MessageEvent event = slot.event;
+                    if (slot.sequence == seq) {
+                        batch.add(event);
+                        seq++;
+                        continue;
+                    }
+                }
+                long claimed = next.get();
+                if (claimed - seq > ring.length) {
+                    // Lapped, the events up to here were overwritten before this sink got to them
+                    long resume = claimed - ring.length + 1;
+                    dropped += resume - seq;
+                    seq = resume;
+                    continue;
+                }
+                break; // Nothing more published yet
+            }
+            sequence = seq;
+        }
+
+        private void deliver() {
+            try {
+                sink.onEvents(batch);
+            } catch (Throwable t) {
+                VMessagePlugin.get().getLogger().error("Error in the {} event sink: {}", sink.getName(), t.getMessage(), t);
+            }
+            handled += batch.size();
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.bus;
+
+import java.util.List;
+
+/**
+ * Consumes the events published on the {@link EventBus}, on a thread of its own.
+ * <p>
+ * Other plugins can add their own sinks with {@link EventBus#addSink(EventSink)}.
+ */
+public interface EventSink {
+
+    /**
+     * @return a short name, used for the thread and in /vmessage stats
+     */
+    String getName();
+
+    /**
+     * Handles the events published since the last call, in the order they were published.
+     * A sink that falls too far behind skips the events it missed instead of slowing down the publishers.
+     *
+     * @param events the events, only valid during the call
+     */
+    void onEvents(List<MessageEvent> events) throws Exception;
+
+    /**
+     * Called once when the bus shuts down, after the last {@link #onEvents}
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.bus;
+
+import off.szymon.vmessage.format.RenderedMessage;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * Something that was shown in game, published once on the {@link EventBus} for every {@link EventSink}
+ *
+ * @param player    the player it is about, null for the console and QQ users
+ * @param sender    the player's name, "Server" for the console or the QQ user's name
+ * @param rendered  the rendered line for chat and broadcasts, null for the others
+ * @param content   the MiniMessage content for chat and broadcasts, the message text for QQ messages
+ * @param server    the (aliased) server, the new one for a change
+ * @param oldServer the (aliased) server the player left for a change
+ * @param channel   the channel of chat that was not sent to everyone, null otherwise
+ * @param count     how many players a join, leave or change summary is about, 1 for everything else
+ */
+public record MessageEvent(
+        Kind kind,
+        long time,
+        @Nullable UUID player,
+        String sender,
+        @Nullable RenderedMessage rendered,
+        @Nullable String content,
+        @Nullable String server,
+        @Nullable String oldServer,
+        @Nullable String channel,
+        int count
+) {
+
+    public enum Kind {
+        CHAT,
+        JOIN,
+        LEAVE,
+        CHANGE,
+        BROADCAST,
+        // A message from the QQ group shown in game
+        QQ
+    }
+
+    public static MessageEvent notice(Kind kind, UUID player, String sender, String server, @Nullable String oldServer) {
+        return new MessageEvent(kind, System.currentTimeMillis(), player, sender, null, null, server, oldServer, null, 1);
+    }
+
+    /**
+     * Join, leave or change messages of many players collected into one, see {@link off.szymon.vmessage.pipeline.NoticeCoalescer}
+     */
+    public static MessageEvent summary(Kind kind, int count, String server, @Nullable String oldServer) {
+        return new MessageEvent(kind, System.currentTimeMillis(), null, "", null, null, server, oldServer, null, count);
+    }
+
+    public static MessageEvent message(Kind kind, @Nullable UUID player, String sender, @Nullable RenderedMessage rendered, String content, @Nullable String server) {
+        return new MessageEvent(kind, System.currentTimeMillis(), player, sender, rendered, content, server, null, null, 1);
+    }
+
+    /**
+     * @param channel the channel, null if the message was sent to everyone
+     */
+    public static MessageEvent chat(UUID player, String sender, RenderedMessage rendered, String content, String server, @Nullable String channel) {
+        return new MessageEvent(Kind.CHAT, System.currentTimeMillis(), player, sender, rendered, content, server, null, channel, 1);
+    }
+
+    public boolean isSummary() {
+        return count > 1;
+    }
+
+    /**
+     * @return the content without any formatting, empty if there is no content
+     */
+    public String plainContent() {
+        if (rendered != null) return rendered.plainContent();
+        return content != null ? content : "";
+    }
+}
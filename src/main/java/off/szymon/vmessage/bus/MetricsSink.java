@@ -0,0 +1,40 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.bus;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts the published events by kind, for /vmessage stats
+ */
+public class MetricsSink implements EventSink {
+
+    private final AtomicLongArray counts = new AtomicLongArray(MessageEvent.Kind.values().length);
+
+    @Override
+    public String getName() {
+        return "Metrics";
+    }
+
+    @Override
+    public void onEvents(List<MessageEvent> events) {
+        for (MessageEvent event : events) {
+            counts.addAndGet(event.kind().ordinal(), event.count());
+        }
+    }
+
+    public long getCount(MessageEvent.Kind kind) {
+        return counts.get(kind.ordinal());
+    }
+}
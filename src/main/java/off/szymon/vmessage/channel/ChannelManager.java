@@ -0,0 +1,146 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+
+package off.szymon.vmessage.channel;
+
+import com.velocitypowered.api.event.PostOrder;
+import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.connection.DisconnectEvent;
+import com.velocitypowered.api.event.player.ServerPostConnectEvent;
+import com.velocitypowered.api.proxy.Player;
+import off.szymon.vmessage.VMessagePlugin;
+import off.szymon.vmessage.config.ConfigManager;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps who is on each server and in each server group, and the chat channel each player picked.
+ * <p>
+ * The audiences are updated when a player connects to a server or leaves, so routing a local or group
+ * message is a map lookup instead of checking the current server of every online player.
+ */
+public class ChannelManager {
+
+    // Server name, players on it
+    private final Map<String, Set<Player>> servers = new ConcurrentHashMap<>();
+    // Group name, players on its servers
+    private final Map<String, Set<Player>> groups = new ConcurrentHashMap<>();
+    private final Map<UUID, String> currentServers = new ConcurrentHashMap<>();
+    private final Map<UUID, ChatChannel> selected = new ConcurrentHashMap<>();
+    // Server name, group name, as of the last rebuild
+    private volatile Map<String, String> serverGroups;
+
+    public ChannelManager() {
+        serverGroups = ConfigManager.get().getRuntime().channels().serverGroups();
+        // Players that were already online when the plugin loaded
+        for (Player player : VMessagePlugin.get().getServer().getAllPlayers()) {
+            player.getCurrentServer().ifPresent(server -> move(player, server.getServerInfo().getName()));
+        }
+    }
+
+    /**
+     * Where a message in a channel goes
+     *
+     * @param group    the server group for {@link ChatChannel#GROUP}, null otherwise
+     * @param audience the players to send it to, null for everyone
+     */
+    public record Route(ChatChannel channel, @Nullable String group, @Nullable Set<Player> audience) {}
+
+    public ChatChannel getChannel(UUID player) {
+        return selected.getOrDefault(player, ConfigManager.get().getRuntime().channels().defaultChannel());
+    }
+
+    public void setChannel(UUID player, ChatChannel channel) {
+        selected.put(player, channel);
+    }
+
+    /**
+     * @return the route for a message the player sends in the channel. A group message from a server
+     * without a group goes to the server only, any message from a player that is on no server goes to everyone.
+     */
+    public Route route(Player player, ChatChannel channel) {
+        if (channel == ChatChannel.GLOBAL) return new Route(ChatChannel.GLOBAL, null, null);
+        String server = currentServers.get(player.getUniqueId());
+        if (server == null) return new Route(ChatChannel.GLOBAL, null, null);
+        if (channel == ChatChannel.GROUP) {
+            String group = serverGroups.get(server);
+            if (group != null) return new Route(ChatChannel.GROUP, group, audience(groups, group));
+        }
+        return new Route(ChatChannel.LOCAL, null, audience(servers, server));
+    }
+
+    private static Set<Player> audience(Map<String, Set<Player>> index, String key) {
+        Set<Player> players = index.get(key);
+        return players != null ? Collections.unmodifiableSet(players) : Set.of();
+    }
+
+    /**
+     * Sorts everyone into the server groups again, after the groups were changed by a reload
+     */
+    public synchronized void rebuildGroups() {
+        Map<String, String> mapping = ConfigManager.get().getRuntime().channels().serverGroups();
+        groups.clear();
+        serverGroups = mapping;
+        for (Map.Entry<String, Set<Player>> entry : servers.entrySet()) {
+            String group = mapping.get(entry.getKey());
+            if (group == null) continue;
+            for (Player player : entry.getValue()) {
+                add(groups, group, player);
+            }
+        }
+    }
+
+    private synchronized void move(Player player, @Nullable String server) {
+        String previous = server != null
+                ? currentServers.put(player.getUniqueId(), server)
+                : currentServers.remove(player.getUniqueId());
+        if (previous != null) {
+            remove(servers, previous, player);
+            String group = serverGroups.get(previous);
+            if (group != null) remove(groups, group, player);
+        }
+        if (server != null) {
+            add(servers, server, player);
+            String group = serverGroups.get(server);
+            if (group != null) add(groups, group, player);
+        }
+    }
+
+    private static void add(Map<String, Set<Player>> index, String key, Player player) {
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(player);
+    }
+
+    private static void remove(Map<String, Set<Player>> index, String key, Player player) {
+        index.computeIfPresent(key, (k, players) -> {
+            players.remove(player);
+            return players.isEmpty() ? null : players;
+        });
+    }
+
+    @Subscribe(order = PostOrder.FIRST)
+    public void onServerConnect(ServerPostConnectEvent e) {
+        Player player = e.getPlayer();
+        player.getCurrentServer().ifPresent(server -> move(player, server.getServerInfo().getName()));
+    }
+
+    @Subscribe(order = PostOrder.LAST)
+    public void onDisconnect(DisconnectEvent e) {
+        move(e.getPlayer(), null);
+        selected.remove(e.getPlayer().getUniqueId());
+    }
+}
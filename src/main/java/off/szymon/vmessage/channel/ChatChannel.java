@@ -0,0 +1,26 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+
+package off.szymon.vmessage.channel;
+
+/**
+ * Who a chat message is sent to
+ */
+public enum ChatChannel {
+    // Everyone on the proxy
+    GLOBAL,
+    // Everyone on a server of the sender's server group, LOCAL if the server is in no group
+    GROUP,
+    // Everyone on the sender's server
+    LOCAL
+}
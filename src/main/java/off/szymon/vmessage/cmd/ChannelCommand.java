@@ -0,0 +1,68 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+
+package off.szymon.vmessage.cmd;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.velocitypowered.api.command.BrigadierCommand;
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.proxy.Player;
+import off.szymon.vmessage.VMessagePlugin;
+import off.szymon.vmessage.channel.ChannelManager;
+import off.szymon.vmessage.channel.ChatChannel;
+import off.szymon.vmessage.config.ConfigManager;
+
+import java.util.Locale;
+
+public class ChannelCommand {
+
+    public BrigadierCommand createCommand() {
+        LiteralArgumentBuilder<CommandSource> command = LiteralArgumentBuilder.<CommandSource>literal("channel")
+                .requires(src -> src instanceof Player && CommandHandler.requiresPermission(src, "vmessage.command.channel",
+                        ConfigManager.get().getConfig().getMessages().getChat().getChannels().getAllowByDefault()))
+                .executes(ctx -> {
+                    Player player = (Player) ctx.getSource();
+                    ChannelManager.Route route = VMessagePlugin.get().getChannelManager()
+                            .route(player, VMessagePlugin.get().getChannelManager().getChannel(player.getUniqueId()));
+                    player.sendRichMessage("<#00ffff>You are chatting in " + describe(route) + ".</#00ffff> <gray>Use /channel <global|group|local> to switch.");
+                    return Command.SINGLE_SUCCESS;
+                });
+
+        // /channel <global|group|local>
+        for (ChatChannel channel : ChatChannel.values()) {
+            command.then(LiteralArgumentBuilder.<CommandSource>literal(channel.name().toLowerCase(Locale.ROOT))
+                    .executes(ctx -> {
+                        Player player = (Player) ctx.getSource();
+                        ChannelManager channels = VMessagePlugin.get().getChannelManager();
+                        channels.setChannel(player.getUniqueId(), channel);
+                        player.sendRichMessage("<#00ffff>You are now chatting in " + describe(channels.route(player, channel)) + ".");
+                        String prefix = ConfigManager.get().getRuntime().channels().globalPrefix();
+                        if (channel != ChatChannel.GLOBAL && !prefix.isEmpty()) {
+                            player.sendRichMessage("<gray>Start a message with " + prefix + " to send it to everyone.");
+                        }
+                        return Command.SINGLE_SUCCESS;
+                    })
+            );
+        }
+        return new BrigadierCommand(command);
+    }
+
+    private static String describe(ChannelManager.Route route) {
+        return switch (route.channel()) {
+            case GLOBAL -> "the global channel";
+            case GROUP -> "the " + route.group() + " channel";
+            case LOCAL -> "your server's channel";
+        };
+    }
+}
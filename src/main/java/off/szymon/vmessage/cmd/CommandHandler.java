@@ -12,6 +12,8 @@
 
 package off.szymon.vmessage.cmd;
 
+import com.mojang.brigadier.suggestion.Suggestions;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
 import com.velocitypowered.api.command.CommandManager;
 import com.velocitypowered.api.command.CommandSource;
 import com.velocitypowered.api.permission.Tristate;
@@ -19,6 +21,8 @@ import com.velocitypowered.api.proxy.Player;
 import off.szymon.vmessage.VMessagePlugin;
 import off.szymon.vmessage.config.ConfigManager;
 
+import java.util.concurrent.CompletableFuture;
+
 public class CommandHandler {
 
     public static void registerCommands() {
@@ -55,6 +59,47 @@ public class CommandHandler {
                     new ReplyCommand().createCommand()
             );
         }
+        if (ConfigManager.get().getConfig().getMessages().getChat().getChannels().getEnabled()) {
+            cmdManager.register(cmdManager.metaBuilder("channel")
+                            .plugin(vMessage)
+                            .aliases("ch")
+                            .build(),
+                    new ChannelCommand().createCommand()
+            );
+        }
+        if (ConfigManager.get().getConfig().getCommands().getStaffChat().getEnabled()) {
+            cmdManager.register(cmdManager.metaBuilder("staffchat")
+                            .plugin(vMessage)
+                            .aliases("sc")
+                            .build(),
+                    new StaffChatCommand().createCommand()
+            );
+        }
+        if (ConfigManager.get().getConfig().getCommands().getSocialSpy().getEnabled()) {
+            cmdManager.register(cmdManager.metaBuilder("socialspy")
+                            .plugin(vMessage)
+                            .build(),
+                    new SocialSpyCommand().createCommand()
+            );
+        }
+        if (ConfigManager.get().getConfig().getCommands().getIgnore().getEnabled()) {
+            cmdManager.register(cmdManager.metaBuilder("ignore")
+                            .plugin(vMessage)
+                            .build(),
+                    new IgnoreCommand().createCommand()
+            );
+        }
+    }
+
+    /**
+     * Suggests online player names starting with what was typed so far, at most {@code max-name-suggestions}
+     */
+    public static CompletableFuture<Suggestions> suggestPlayerNames(SuggestionsBuilder builder) {
+        int limit = ConfigManager.get().getRuntime().maxNameSuggestions();
+        for (String name : VMessagePlugin.get().getPlayerNameIndex().complete(builder.getRemainingLowerCase(), limit)) {
+            builder.suggest(name);
+        }
+        return builder.buildFuture();
     }
 
     public static boolean requiresPermission(CommandSource src, String perm, boolean defaultValue) {
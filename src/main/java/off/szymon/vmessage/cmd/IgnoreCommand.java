@@ -0,0 +1,167 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.cmd;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.LongArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.velocitypowered.api.command.BrigadierCommand;
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.proxy.Player;
+import off.szymon.vmessage.VMessagePlugin;
+import off.szymon.vmessage.config.ConfigManager;
+import off.szymon.vmessage.ignore.IgnoreList;
+import off.szymon.vmessage.ignore.IgnoreManager;
+import off.szymon.vmessage.inbox.OfflineInbox;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public class IgnoreCommand {
+
+    /**
+     * @param online null if the player is offline
+     */
+    private record Target(UUID uniqueId, String name, @Nullable Player online) {}
+
+    public BrigadierCommand createCommand() {
+        return new BrigadierCommand(
+                LiteralArgumentBuilder.<CommandSource>literal("ignore")
+                        .requires(src -> src instanceof Player && CommandHandler.requiresPermission(src, "vmessage.command.ignore",
+                                ConfigManager.get().getConfig().getCommands().getIgnore().getAllowByDefault()))
+                        .executes(ctx -> {
+                            ctx.getSource().sendRichMessage("<red>Usage: /ignore <player> | /ignore qq <id> | /ignore list");
+                            return Command.SINGLE_SUCCESS;
+                        })
+
+                        // /ignore list
+                        .then(LiteralArgumentBuilder.<CommandSource>literal("list")
+                                .executes(ctx -> {
+                                    Player player = (Player) ctx.getSource();
+                                    IgnoreList list = VMessagePlugin.get().getIgnoreManager().getList(player.getUniqueId());
+                                    if (list.isEmpty()) {
+                                        player.sendRichMessage("<#00ffff>You are not ignoring anyone.");
+                                        return Command.SINGLE_SUCCESS;
+                                    }
+                                    List<String> names = new ArrayList<>();
+                                    for (UUID target : list.getPlayers()) {
+                                        names.add(nameOf(target));
+                                    }
+                                    for (long qqId : list.getQqIds()) {
+                                        names.add("QQ " + qqId);
+                                    }
+                                    player.sendRichMessage("<#00ffff>Ignored:</#00ffff> <gray>" + String.join(", ", names));
+                                    return Command.SINGLE_SUCCESS;
+                                })
+                        )
+
+                        // /ignore qq <id>
+                        .then(LiteralArgumentBuilder.<CommandSource>literal("qq")
+                                .then(RequiredArgumentBuilder.<CommandSource, Long>argument("id", LongArgumentType.longArg(0))
+                                        .executes(ctx -> {
+                                            Player player = (Player) ctx.getSource();
+                                            long qqId = LongArgumentType.getLong(ctx, "id");
+                                            try {
+                                                boolean ignored = VMessagePlugin.get().getIgnoreManager().toggleQq(player.getUniqueId(), qqId);
+                                                player.sendRichMessage(ignored
+                                                        ? "<#00ffff>You are now ignoring QQ " + qqId + "."
+                                                        : "<#00ffff>You are no longer ignoring QQ " + qqId + ".");
+                                            } catch (IOException e) {
+                                                failed(player, e);
+                                            }
+                                            return Command.SINGLE_SUCCESS;
+                                        })
+                                )
+                        )
+
+                        // /ignore <player>
+                        .then(RequiredArgumentBuilder.<CommandSource, String>argument("player", StringArgumentType.word())
+                                .suggests((ctx, builder) -> CommandHandler.suggestPlayerNames(builder))
+                                .executes(ctx -> {
+                                    Player player = (Player) ctx.getSource();
+                                    Optional<Target> target = findTarget(StringArgumentType.getString(ctx, "player"));
+                                    if (target.isEmpty()) {
+                                        player.sendRichMessage("<red>Player not found!");
+                                        return Command.SINGLE_SUCCESS;
+                                    }
+                                    if (target.get().uniqueId().equals(player.getUniqueId())) {
+                                        player.sendRichMessage("<red>You cannot ignore yourself!");
+                                        return Command.SINGLE_SUCCESS;
+                                    }
+                                    IgnoreManager ignores = VMessagePlugin.get().getIgnoreManager();
+                                    String name = target.get().name();
+                                    // Players can always stop ignoring someone, even if they became exempt or are offline
+                                    if (!ignores.isIgnoring(player.getUniqueId(), target.get().uniqueId())) {
+                                        Player online = target.get().online();
+                                        if (online == null) {
+                                            // Whether they are exempt can only be checked while they are online
+                                            player.sendRichMessage("<red>" + name + " is offline, you can only stop ignoring offline players.");
+                                            return Command.SINGLE_SUCCESS;
+                                        }
+                                        if (online.hasPermission("vmessage.ignore.exempt")) {
+                                            player.sendRichMessage("<red>You cannot ignore " + name + ".");
+                                            return Command.SINGLE_SUCCESS;
+                                        }
+                                    }
+                                    try {
+                                        boolean ignored = ignores.togglePlayer(player.getUniqueId(), target.get().uniqueId());
+                                        player.sendRichMessage(ignored
+                                                ? "<#00ffff>You are now ignoring " + name + "."
+                                                : "<#00ffff>You are no longer ignoring " + name + ".");
+                                    } catch (IOException e) {
+                                        failed(player, e);
+                                    }
+                                    return Command.SINGLE_SUCCESS;
+                                })
+                        )
+        );
+    }
+
+    /**
+     * An online player by name, else a UUID or the name an offline player last joined with
+     */
+    private static Optional<Target> findTarget(String input) {
+        Optional<Player> online = VMessagePlugin.get().getServer().getPlayer(input);
+        if (online.isPresent()) return Optional.of(new Target(online.get().getUniqueId(), online.get().getUsername(), online.get()));
+        UUID uniqueId;
+        try {
+            uniqueId = UUID.fromString(input);
+        } catch (IllegalArgumentException e) {
+            OfflineInbox inbox = VMessagePlugin.get().getOfflineInbox();
+            if (inbox == null) return Optional.empty();
+            return inbox.findPlayer(input).map(known -> new Target(known.uniqueId(), known.name(), null));
+        }
+        return Optional.of(new Target(uniqueId, nameOf(uniqueId), VMessagePlugin.get().getServer().getPlayer(uniqueId).orElse(null)));
+    }
+
+    /**
+     * @return the player's current or last known name, or the UUID if neither is known
+     */
+    private static String nameOf(UUID uniqueId) {
+        Optional<Player> online = VMessagePlugin.get().getServer().getPlayer(uniqueId);
+        if (online.isPresent()) return online.get().getUsername();
+        OfflineInbox inbox = VMessagePlugin.get().getOfflineInbox();
+        return (inbox != null ? inbox.findName(uniqueId) : Optional.<String>empty()).orElse(uniqueId.toString());
+    }
+
+    private static void failed(Player player, IOException e) {
+        VMessagePlugin.get().getLogger().error("Failed to save the ignore list of {}: {}", player.getUsername(), e.getMessage());
+        player.sendRichMessage("<red>Failed to save your ignore list, try again later.");
+    }
+}
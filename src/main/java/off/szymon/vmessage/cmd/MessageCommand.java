@@ -22,6 +22,13 @@ import com.velocitypowered.api.proxy.Player;
 import off.szymon.vmessage.VMessagePlugin;
 import off.szymon.vmessage.compatibility.LuckPermsCompatibilityProvider;
 import off.szymon.vmessage.config.ConfigManager;
+import off.szymon.vmessage.config.RuntimeConfig;
+import off.szymon.vmessage.inbox.OfflineInbox;
+import off.szymon.vmessage.session.PlayerSession;
+import off.szymon.vmessage.session.SessionManager;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Optional;
 
 public class MessageCommand {
 
@@ -37,44 +44,45 @@ public class MessageCommand {
                         .requires(src -> CommandHandler.requiresPermission(src, "vmessage.command.message",
                                 ConfigManager.get().getConfig().getCommands().getMessage().getAllowByDefault()))
                         .then(RequiredArgumentBuilder.<CommandSource, String>argument("player", StringArgumentType.word())
-                                .suggests(
-                                        (ctx, builder) -> {
-                                            for (Player player : VMessagePlugin.get().getServer().getAllPlayers()) {
-                                                builder.suggest(player.getUsername());
-                                            }
-                                            return builder.buildFuture();
-                                        }
-                                )
+                                .suggests((ctx, builder) -> CommandHandler.suggestPlayerNames(builder))
                                 .then(RequiredArgumentBuilder.<CommandSource, String>argument("message", StringArgumentType.greedyString())
                                         .executes(ctx -> {
-                                            String senderFormat = ConfigManager.get().getConfig().getCommands().getMessage().getFormat().getSender();
-                                            String receiverFormat = ConfigManager.get().getConfig().getCommands().getMessage().getFormat().getReceiver();
+                                            RuntimeConfig config = ConfigManager.get().getRuntime();
+                                            String senderFormat = config.message().senderFormat();
+                                            String receiverFormat = config.message().receiverFormat();
                                             CommandSource sender = ctx.getSource();
                                             Player senderPlayer = ctx.getSource() instanceof Player ? (Player) ctx.getSource() : null;
-                                            Player receiver;
-                                            try {
-                                                receiver = VMessagePlugin.get().getServer().getPlayer(StringArgumentType.getString(ctx, "player")).orElseThrow();
-                                            } catch (Exception e) {
-                                                sender.sendRichMessage("<red>Player not found!");
+                                            String receiverName = StringArgumentType.getString(ctx, "player");
+                                            Optional<Player> onlineReceiver = VMessagePlugin.get().getServer().getPlayer(receiverName);
+                                            if (onlineReceiver.isEmpty()) {
+                                                sendOffline(sender, senderPlayer, receiverName, StringArgumentType.getString(ctx, "message"));
                                                 return Command.SINGLE_SUCCESS;
                                             }
+                                            Player receiver = onlineReceiver.get();
                                             if (senderPlayer != null && senderPlayer.getUniqueId().equals(receiver.getUniqueId())) {
                                                 sender.sendRichMessage("<red>You cannot message yourself!");
                                                 return Command.SINGLE_SUCCESS;
                                             }
+                                            if (senderPlayer != null && VMessagePlugin.get().getIgnoreManager().isIgnoring(receiver.getUniqueId(), senderPlayer.getUniqueId())) {
+                                                sender.sendRichMessage("<red>" + receiver.getUsername() + " is not accepting your messages.");
+                                                return Command.SINGLE_SUCCESS;
+                                            }
                                             String message = StringArgumentType.getString(ctx, "message");
-                                            var msgConfig = ConfigManager.get().getConfig().getCommands().getMessage();
-                                            message = VMessagePlugin.get().getBroadcaster().processMessageContent(message, msgConfig.getAllowLegacyColorCodes(), msgConfig.getAllowMiniMessage());
+                                            RuntimeConfig.PrivateMessage msgConfig = config.message();
+                                            message = VMessagePlugin.get().getBroadcaster().processPlayerContent(sender, message, msgConfig.allowLegacyColorCodes(), msgConfig.allowMiniMessage());
+                                            if (message == null) {
+                                                return Command.SINGLE_SUCCESS;
+                                            }
 
                                             /* Placeholders */
 
                                             // Player names (sender and receiver), servers (sender and receiver), message
                                             if (senderPlayer != null) {
                                                 String senderServer = senderPlayer.getCurrentServer()
-                                                        .map(server -> VMessagePlugin.get().getBroadcaster().parseAlias(server.getServerInfo().getName()))
+                                                        .map(server -> config.parseAlias(server.getServerInfo().getName()))
                                                         .orElse("Unknown");
                                                 String receiverServer = receiver.getCurrentServer()
-                                                        .map(server -> VMessagePlugin.get().getBroadcaster().parseAlias(server.getServerInfo().getName()))
+                                                        .map(server -> config.parseAlias(server.getServerInfo().getName()))
                                                         .orElse("Unknown");
                                                 senderFormat = senderFormat
                                                         .replace("%sender%", senderPlayer.getUsername())
@@ -100,15 +108,16 @@ public class MessageCommand {
                                                     .replace("%message%",message);
                                             // Sender and receiver prefixes and suffixes (if LuckPerms is installed)
                                             if (lp != null) {
+                                                SessionManager sessions = VMessagePlugin.get().getSessionManager();
                                                 if (senderPlayer != null) {
-                                                    LuckPermsCompatibilityProvider.PlayerData senderData = lp.getMetaData(senderPlayer);
+                                                    PlayerSession senderSession = sessions.get(senderPlayer);
                                                     senderFormat = senderFormat
-                                                            .replace("%sender-prefix%", senderData.metaData().getPrefix() != null ? senderData.metaData().getPrefix() : "")
-                                                            .replace("%sender-suffix%", senderData.metaData().getSuffix() != null ? senderData.metaData().getSuffix() : "");
-                                                    for (var entry : VMessagePlugin.get().getBroadcaster().getMetaPlaceholders().entrySet()) {
+                                                            .replace("%sender-prefix%", senderSession.getPrefix())
+                                                            .replace("%sender-suffix%", senderSession.getSuffix());
+                                                    for (var entry : config.metaPlaceholders().entrySet()) {
                                                         senderFormat = senderFormat.replace(
                                                                 entry.getKey(),
-                                                                senderData.metaData().getMetaValue(entry.getValue()) != null ? senderData.metaData().getMetaValue(entry.getValue()) : ""
+                                                                sessions.getMetaValue(senderPlayer, entry.getValue())
                                                         );
                                                     }
                                                 } else {
@@ -116,21 +125,21 @@ public class MessageCommand {
                                                             .replace("%sender-prefix%", "")
                                                             .replace("%sender-suffix%", "");
                                                 }
-                                                LuckPermsCompatibilityProvider.PlayerData receiverData = lp.getMetaData(receiver);
+                                                PlayerSession receiverSession = sessions.get(receiver);
                                                 senderFormat = senderFormat
-                                                        .replace("%receiver-prefix%", receiverData.metaData().getPrefix() != null ? receiverData.metaData().getPrefix() : "")
-                                                        .replace("%receiver-suffix%", receiverData.metaData().getSuffix() != null ? receiverData.metaData().getSuffix() : "");
+                                                        .replace("%receiver-prefix%", receiverSession.getPrefix())
+                                                        .replace("%receiver-suffix%", receiverSession.getSuffix());
                                                 receiverFormat = receiverFormat
-                                                        .replace("%receiver-prefix%", receiverData.metaData().getPrefix() != null ? receiverData.metaData().getPrefix() : "")
-                                                        .replace("%receiver-suffix%", receiverData.metaData().getSuffix() != null ? receiverData.metaData().getSuffix() : "");
-                                                for (var entry : VMessagePlugin.get().getBroadcaster().getMetaPlaceholders().entrySet()) {
+                                                        .replace("%receiver-prefix%", receiverSession.getPrefix())
+                                                        .replace("%receiver-suffix%", receiverSession.getSuffix());
+                                                for (var entry : config.metaPlaceholders().entrySet()) {
                                                     senderFormat = senderFormat.replace(
                                                             entry.getKey(),
-                                                            receiverData.metaData().getMetaValue(entry.getValue()) != null ? receiverData.metaData().getMetaValue(entry.getValue()) : ""
+                                                            sessions.getMetaValue(receiver, entry.getValue())
                                                     );
                                                     receiverFormat = receiverFormat.replace(
                                                             entry.getKey(),
-                                                            receiverData.metaData().getMetaValue(entry.getValue()) != null ? receiverData.metaData().getMetaValue(entry.getValue()) : ""
+                                                            sessions.getMetaValue(receiver, entry.getValue())
                                                     );
                                                 }
                                             } else {
@@ -143,9 +152,10 @@ public class MessageCommand {
 
                                             sender.sendRichMessage(senderFormat);
                                             receiver.sendRichMessage(receiverFormat);
+                                            VMessagePlugin.get().getSocialSpy().spy(senderPlayer, receiver.getUsername(), receiver.getUniqueId(), message);
 
                                             if (senderPlayer != null) {
-                                                ReplyCommand.messageSent(senderPlayer.getUniqueId(), receiver.getUniqueId());
+                                                VMessagePlugin.get().getConversationRegistry().messageSent(senderPlayer.getUniqueId(), receiver);
                                             }
                                             return Command.SINGLE_SUCCESS;
                                         })
@@ -154,6 +164,82 @@ public class MessageCommand {
         );
     }
 
+    /**
+     * Stores the message in the receiver's offline inbox, if they joined before and offline messages are enabled
+     */
+    private void sendOffline(CommandSource sender, @Nullable Player senderPlayer, String receiverName, String message) {
+        RuntimeConfig config = ConfigManager.get().getRuntime();
+        RuntimeConfig.PrivateMessage msgConfig = config.message();
+        OfflineInbox inbox = VMessagePlugin.get().getOfflineInbox();
+        Optional<OfflineInbox.KnownPlayer> receiver = inbox != null && msgConfig.offline().enabled()
+                ? inbox.findPlayer(receiverName)
+                : Optional.empty();
+        if (receiver.isEmpty()) {
+            sender.sendRichMessage("<red>Player not found!");
+            return;
+        }
+        String name = receiver.get().name();
+        if (senderPlayer != null) {
+            if (senderPlayer.getUniqueId().equals(receiver.get().uniqueId())) {
+                sender.sendRichMessage("<red>You cannot message yourself!");
+                return;
+            }
+            if (VMessagePlugin.get().getIgnoreManager().isIgnoringStored(receiver.get().uniqueId(), senderPlayer.getUniqueId())) {
+                sender.sendRichMessage("<red>" + name + " is not accepting your messages.");
+                return;
+            }
+        }
+        message = VMessagePlugin.get().getBroadcaster().processPlayerContent(sender, message, msgConfig.allowLegacyColorCodes(), msgConfig.allowMiniMessage());
+        if (message == null) return;
 
+        String senderName = senderPlayer != null ? senderPlayer.getUsername() : "Console";
+        String senderServer = senderPlayer != null
+                ? senderPlayer.getCurrentServer().map(server -> config.parseAlias(server.getServerInfo().getName())).orElse("Unknown")
+                : "Console";
+        String senderPrefix = "";
+        String senderSuffix = "";
+        if (lp != null && senderPlayer != null) {
+            PlayerSession senderSession = VMessagePlugin.get().getSessionManager().get(senderPlayer);
+            senderPrefix = senderSession.getPrefix();
+            senderSuffix = senderSession.getSuffix();
+        }
+        // The receiver's server and LuckPerms meta are unknown while they are offline
+        String senderFormat = msgConfig.senderFormat();
+        String receiverFormat = msgConfig.receiverFormat();
+        for (String[] placeholder : new String[][]{
+                {"%sender%", senderName},
+                {"%sender-server%", senderServer},
+                {"%sender-prefix%", senderPrefix},
+                {"%sender-suffix%", senderSuffix},
+                {"%receiver%", name},
+                {"%receiver-server%", "Offline"},
+                {"%receiver-prefix%", ""},
+                {"%receiver-suffix%", ""},
+                {"%message%", message}
+        }) {
+            senderFormat = senderFormat.replace(placeholder[0], placeholder[1]);
+            receiverFormat = receiverFormat.replace(placeholder[0], placeholder[1]);
+        }
+        // LuckPerms meta: the sender's in their own copy like when the receiver is online, the receiver's is empty
+        for (var entry : config.metaPlaceholders().entrySet()) {
+            if (lp != null && senderPlayer != null) {
+                senderFormat = senderFormat.replace(
+                        entry.getKey(),
+                        VMessagePlugin.get().getSessionManager().getMetaValue(senderPlayer, entry.getValue())
+                );
+            }
+            senderFormat = senderFormat.replace(entry.getKey(), "");
+            receiverFormat = receiverFormat.replace(entry.getKey(), "");
+        }
 
+        switch (inbox.send(receiver.get().uniqueId(), receiverFormat)) {
+            case SENT -> {
+                sender.sendRichMessage(senderFormat);
+                sender.sendRichMessage(msgConfig.offline().sentNotice().replace("%receiver%", name));
+                VMessagePlugin.get().getSocialSpy().spy(senderPlayer, name, receiver.get().uniqueId(), message);
+            }
+            case FULL -> sender.sendRichMessage(msgConfig.offline().fullMessage().replace("%receiver%", name));
+            case FAILED -> sender.sendRichMessage("<red>Failed to store your message, try again later.");
+        }
+    }
 }
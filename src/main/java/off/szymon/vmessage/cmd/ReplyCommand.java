@@ -22,16 +22,12 @@ import com.velocitypowered.api.proxy.Player;
 import off.szymon.vmessage.VMessagePlugin;
 import off.szymon.vmessage.compatibility.LuckPermsCompatibilityProvider;
 import off.szymon.vmessage.config.ConfigManager;
-
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
-import java.util.UUID;
+import off.szymon.vmessage.config.RuntimeConfig;
+import off.szymon.vmessage.session.PlayerSession;
+import off.szymon.vmessage.session.SessionManager;
 
 public class ReplyCommand {
 
-    private static final Map<UUID, UUID> repliers = new HashMap<>();
-
     private final LuckPermsCompatibilityProvider lp;
 
     public ReplyCommand() {
@@ -45,8 +41,9 @@ public class ReplyCommand {
                                 ConfigManager.get().getConfig().getCommands().getMessage().getAllowByDefault()))
                         .then(RequiredArgumentBuilder.<CommandSource, String>argument("message", StringArgumentType.greedyString())
                                 .executes( ctx -> {
-                                    String senderFormat = ConfigManager.get().getConfig().getCommands().getMessage().getFormat().getSender();
-                                    String receiverFormat = ConfigManager.get().getConfig().getCommands().getMessage().getFormat().getReceiver();
+                                    RuntimeConfig config = ConfigManager.get().getRuntime();
+                                    String senderFormat = config.message().senderFormat();
+                                    String receiverFormat = config.message().receiverFormat();
                                     CommandSource sender = ctx.getSource();
                                     Player senderPlayer;
                                     if (ctx.getSource() instanceof Player) {
@@ -57,23 +54,30 @@ public class ReplyCommand {
                                     }
                                     Player receiver;
                                     try {
-                                        receiver = VMessagePlugin.get().getServer().getPlayer(Optional.ofNullable(repliers.get(senderPlayer.getUniqueId())).orElseThrow()).orElseThrow();
+                                        receiver = VMessagePlugin.get().getServer().getPlayer(VMessagePlugin.get().getConversationRegistry().getReplyTarget(senderPlayer.getUniqueId()).orElseThrow()).orElseThrow();
                                     } catch (Exception e) {
                                         ctx.getSource().sendRichMessage("<red>You have no one to reply to.");
                                         return Command.SINGLE_SUCCESS;
                                     }
+                                    if (VMessagePlugin.get().getIgnoreManager().isIgnoring(receiver.getUniqueId(), senderPlayer.getUniqueId())) {
+                                        sender.sendRichMessage("<red>" + receiver.getUsername() + " is not accepting your messages.");
+                                        return Command.SINGLE_SUCCESS;
+                                    }
                                     String message = StringArgumentType.getString(ctx, "message");
-                                    var msgConfig = ConfigManager.get().getConfig().getCommands().getMessage();
-                                    message = VMessagePlugin.get().getBroadcaster().processMessageContent(message, msgConfig.getAllowLegacyColorCodes(), msgConfig.getAllowMiniMessage());
+                                    RuntimeConfig.PrivateMessage msgConfig = config.message();
+                                    message = VMessagePlugin.get().getBroadcaster().processPlayerContent(ctx.getSource(), message, msgConfig.allowLegacyColorCodes(), msgConfig.allowMiniMessage());
+                                    if (message == null) {
+                                        return Command.SINGLE_SUCCESS;
+                                    }
 
                                     /* Placeholders */
 
                                     // Player names (sender and receiver), servers (sender and receiver), message
                                     String senderServer = senderPlayer.getCurrentServer()
-                                            .map(server -> VMessagePlugin.get().getBroadcaster().parseAlias(server.getServerInfo().getName()))
+                                            .map(server -> config.parseAlias(server.getServerInfo().getName()))
                                             .orElse("Unknown");
                                     String receiverServer = receiver.getCurrentServer()
-                                            .map(server -> VMessagePlugin.get().getBroadcaster().parseAlias(server.getServerInfo().getName()))
+                                            .map(server -> config.parseAlias(server.getServerInfo().getName()))
                                             .orElse("Unknown");
                                     senderFormat = senderFormat
                                             .replace("%sender%", senderPlayer.getUsername())
@@ -91,31 +95,32 @@ public class ReplyCommand {
                                             .replace("%message%",message);
                                     // Sender and receiver prefixes and suffixes (if LuckPerms is installed)
                                     if (lp != null) {
-                                        LuckPermsCompatibilityProvider.PlayerData senderData = lp.getMetaData(senderPlayer);
+                                        SessionManager sessions = VMessagePlugin.get().getSessionManager();
+                                        PlayerSession senderSession = sessions.get(senderPlayer);
                                         senderFormat = senderFormat
-                                                .replace("%sender-prefix%", senderData.metaData().getPrefix() != null ? senderData.metaData().getPrefix() : "")
-                                                .replace("%sender-suffix%", senderData.metaData().getSuffix() != null ? senderData.metaData().getSuffix() : "");
-                                        for (var entry : VMessagePlugin.get().getBroadcaster().getMetaPlaceholders().entrySet()) {
+                                                .replace("%sender-prefix%", senderSession.getPrefix())
+                                                .replace("%sender-suffix%", senderSession.getSuffix());
+                                        for (var entry : config.metaPlaceholders().entrySet()) {
                                             senderFormat = senderFormat.replace(
                                                     entry.getKey(),
-                                                    senderData.metaData().getMetaValue(entry.getValue()) != null ? senderData.metaData().getMetaValue(entry.getValue()) : ""
+                                                    sessions.getMetaValue(senderPlayer, entry.getValue())
                                             );
                                         }
-                                        LuckPermsCompatibilityProvider.PlayerData receiverData = lp.getMetaData(receiver);
+                                        PlayerSession receiverSession = sessions.get(receiver);
                                         senderFormat = senderFormat
-                                                .replace("%receiver-prefix%", receiverData.metaData().getPrefix() != null ? receiverData.metaData().getPrefix() : "")
-                                                .replace("%receiver-suffix%", receiverData.metaData().getSuffix() != null ? receiverData.metaData().getSuffix() : "");
+                                                .replace("%receiver-prefix%", receiverSession.getPrefix())
+                                                .replace("%receiver-suffix%", receiverSession.getSuffix());
                                         receiverFormat = receiverFormat
-                                                .replace("%receiver-prefix%", receiverData.metaData().getPrefix() != null ? receiverData.metaData().getPrefix() : "")
-                                                .replace("%receiver-suffix%", receiverData.metaData().getSuffix() != null ? receiverData.metaData().getSuffix() : "");
-                                        for (var entry : VMessagePlugin.get().getBroadcaster().getMetaPlaceholders().entrySet()) {
+                                                .replace("%receiver-prefix%", receiverSession.getPrefix())
+                                                .replace("%receiver-suffix%", receiverSession.getSuffix());
+                                        for (var entry : config.metaPlaceholders().entrySet()) {
                                             senderFormat = senderFormat.replace(
                                                     entry.getKey(),
-                                                    receiverData.metaData().getMetaValue(entry.getValue()) != null ? receiverData.metaData().getMetaValue(entry.getValue()) : ""
+                                                    sessions.getMetaValue(receiver, entry.getValue())
                                             );
                                             receiverFormat = receiverFormat.replace(
                                                     entry.getKey(),
-                                                    receiverData.metaData().getMetaValue(entry.getValue()) != null ? receiverData.metaData().getMetaValue(entry.getValue()) : ""
+                                                    sessions.getMetaValue(receiver, entry.getValue())
                                             );
                                         }
                                     } else {
@@ -128,8 +133,9 @@ public class ReplyCommand {
 
                                     sender.sendRichMessage(senderFormat);
                                     receiver.sendRichMessage(receiverFormat);
+                                    VMessagePlugin.get().getSocialSpy().spy(senderPlayer, receiver.getUsername(), receiver.getUniqueId(), message);
 
-                                    messageSent(senderPlayer.getUniqueId(), receiver.getUniqueId());
+                                    VMessagePlugin.get().getConversationRegistry().messageSent(senderPlayer.getUniqueId(), receiver);
 
                                     return Command.SINGLE_SUCCESS;
                                 })
@@ -137,9 +143,4 @@ public class ReplyCommand {
                         .build()
         );
     }
-
-    public static void messageSent(UUID sender, UUID receiver) {
-        repliers.put(receiver, sender);
-    }
-
 }
@@ -0,0 +1,40 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+
+package off.szymon.vmessage.cmd;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.velocitypowered.api.command.BrigadierCommand;
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.proxy.Player;
+import off.szymon.vmessage.VMessagePlugin;
+import off.szymon.vmessage.session.PermissionIndex;
+
+public class SocialSpyCommand {
+
+    public BrigadierCommand createCommand() {
+        return new BrigadierCommand(
+                LiteralArgumentBuilder.<CommandSource>literal("socialspy")
+                        .requires(src -> src instanceof Player && src.hasPermission(PermissionIndex.SOCIAL_SPY))
+                        .executes(ctx -> {
+                            Player player = (Player) ctx.getSource();
+                            boolean enabled = VMessagePlugin.get().getSocialSpy().toggle(player.getUniqueId());
+                            player.sendRichMessage(enabled
+                                    ? "<#00ffff>You now see private messages."
+                                    : "<#00ffff>You no longer see private messages.");
+                            return Command.SINGLE_SUCCESS;
+                        })
+        );
+    }
+}
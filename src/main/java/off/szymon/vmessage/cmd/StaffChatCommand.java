@@ -0,0 +1,53 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+
+package off.szymon.vmessage.cmd;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.velocitypowered.api.command.BrigadierCommand;
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.proxy.Player;
+import off.szymon.vmessage.VMessagePlugin;
+import off.szymon.vmessage.session.PermissionIndex;
+
+public class StaffChatCommand {
+
+    public BrigadierCommand createCommand() {
+        return new BrigadierCommand(
+                LiteralArgumentBuilder.<CommandSource>literal("staffchat")
+                        .requires(src -> src.hasPermission(PermissionIndex.STAFF_CHAT))
+                        // /staffchat toggles whether chat goes to staff chat
+                        .executes(ctx -> {
+                            if (!(ctx.getSource() instanceof Player player)) {
+                                ctx.getSource().sendRichMessage("<red>Usage: /staffchat <message>");
+                                return Command.SINGLE_SUCCESS;
+                            }
+                            boolean toggled = VMessagePlugin.get().getStaffChat().toggle(player.getUniqueId());
+                            player.sendRichMessage(toggled
+                                    ? "<#00ffff>Your chat messages now go to staff chat."
+                                    : "<#00ffff>Your chat messages go to everyone again.");
+                            return Command.SINGLE_SUCCESS;
+                        })
+                        // /staffchat <message>
+                        .then(RequiredArgumentBuilder.<CommandSource, String>argument("message", StringArgumentType.greedyString())
+                                .executes(ctx -> {
+                                    VMessagePlugin.get().getStaffChat().send(ctx.getSource(), StringArgumentType.getString(ctx, "message"));
+                                    return Command.SINGLE_SUCCESS;
+                                })
+                        )
+        );
+    }
+}
@@ -20,8 +20,18 @@ import com.velocitypowered.api.command.CommandSource;
 import com.velocitypowered.api.proxy.Player;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 import off.szymon.vmessage.VMessagePlugin;
+import off.szymon.vmessage.bus.EventBus;
+import off.szymon.vmessage.bus.MessageEvent;
+import off.szymon.vmessage.bus.MetricsSink;
+import off.szymon.vmessage.compatibility.mute.MuteLookupExecutor;
 import off.szymon.vmessage.config.ConfigManager;
+import off.szymon.vmessage.format.ComponentCache;
 import off.szymon.vmessage.onebot.OneBotListener;
+import off.szymon.vmessage.pipeline.ChatPipeline;
+import off.szymon.vmessage.pipeline.FanOut;
+import off.szymon.vmessage.pipeline.LoadGovernor;
+import off.szymon.vmessage.pipeline.NoticeCoalescer;
+import off.szymon.vmessage.session.ConversationRegistry;
 
 import java.util.Optional;
 
@@ -34,8 +44,10 @@ public class VMessageCommand {
                         .executes(ctx -> {
                             ctx.getSource().sendMessage(MiniMessage.miniMessage().deserialize("""
                         <#00ffff>vMessage</#00ffff> by <#00ffff>%s</#00ffff>
-                        Version: <#00ffff>%s</#00ffff>"""
-                                    .formatted(String.join(",",VMessagePlugin.get().getPlugin().getDescription().getAuthors()),VMessagePlugin.get().getPlugin().getDescription().getVersion().get())));
+                        Version: <#00ffff>%s</#00ffff>
+                        Load shedding: <#00ffff>%s</#00ffff>"""
+                                    .formatted(String.join(",",VMessagePlugin.get().getPlugin().getDescription().getAuthors()),VMessagePlugin.get().getPlugin().getDescription().getVersion().get(),
+                                            VMessagePlugin.get().getLoadGovernor().getLevel())));
                             return 1;
                         })
 
@@ -48,6 +60,7 @@ public class VMessageCommand {
                             <#00ffff>/vmessage say <player> <message></#00ffff> - Sends a message as a player
                             <#00ffff>/vmessage fake <join/leave/change> [player] [old-server]</#00ffff> - Sends a fake join/leave/change message
                             <#00ffff>/vmessage reload</#00ffff> - Reload the config
+                            <#00ffff>/vmessage stats</#00ffff> - Show cache statistics
                             <#00ffff>/vmessage help</#00ffff> - Show this help message
                             <#00ffff>/vmessage</#00ffff> - Show the plugin version and author"""));
                                     return 1;
@@ -58,15 +71,79 @@ public class VMessageCommand {
                         .then(LiteralArgumentBuilder.<CommandSource>literal("reload")
                                 .requires(src -> src.hasPermission("vmessage.command.reload"))
                                 .executes(ctx -> {
-                                    ConfigManager.get().load();
-                                    VMessagePlugin.get().getBroadcaster().reload();
-                                    // Reload OneBot client and listener if enabled
-                                    VMessagePlugin.get().getBroadcaster().reloadOneBot();
-                                    OneBotListener oneBotListener = VMessagePlugin.get().getOneBotListener();
-                                    if (oneBotListener != null) {
-                                        oneBotListener.reload();
+                                    // Loading and compiling happens off the command thread, the new config is published in one swap
+                                    VMessagePlugin.get().getServer().getScheduler().buildTask(VMessagePlugin.get(), () -> {
+                                        try {
+                                            ConfigManager.get().load();
+                                            // Meta placeholders may have changed, resolve them again for everyone online
+                                            VMessagePlugin.get().getSessionManager().refreshAll();
+                                            // Server groups may have changed
+                                            VMessagePlugin.get().getChannelManager().rebuildGroups();
+                                            // Chat format variants may have changed
+                                            VMessagePlugin.get().getPermissionIndex().reload();
+                                            // Reload OneBot client and listener if enabled
+                                            VMessagePlugin.get().getOneBotSink().reload();
+                                            OneBotListener oneBotListener = VMessagePlugin.get().getOneBotListener();
+                                            if (oneBotListener != null) {
+                                                oneBotListener.reload();
+                                            }
+                                            ctx.getSource().sendMessage(MiniMessage.miniMessage().deserialize("<#00ffff>vMessage</#00ffff> config reloaded!"));
+                                        } catch (Exception e) {
+                                            VMessagePlugin.get().getLogger().error("Failed to reload config: {}", e.getMessage(), e);
+                                            ctx.getSource().sendMessage(MiniMessage.miniMessage().deserialize("<red>Failed to reload the config, check the console for details."));
+                                        }
+                                    }).schedule();
+                                    return 1;
+                                })
+                        )
+
+                        // /vmessage stats
+                        .then(LiteralArgumentBuilder.<CommandSource>literal("stats")
+                                .requires(src -> src.hasPermission("vmessage.command.stats"))
+                                .executes(ctx -> {
+                                    ComponentCache cache = ConfigManager.get().getRuntime().componentCache();
+                                    long hits = cache.getHits();
+                                    long misses = cache.getMisses();
+                                    long lookups = hits + misses;
+                                    MuteLookupExecutor muteLookups = VMessagePlugin.get().getMuteLookupExecutor();
+                                    ConversationRegistry conversations = VMessagePlugin.get().getConversationRegistry();
+                                    ChatPipeline chat = VMessagePlugin.get().getChatPipeline();
+                                    FanOut fanOut = VMessagePlugin.get().getFanOut();
+                                    EventBus bus = VMessagePlugin.get().getEventBus();
+                                    MetricsSink events = VMessagePlugin.get().getMetricsSink();
+                                    NoticeCoalescer notices = VMessagePlugin.get().getNoticeCoalescer();
+                                    LoadGovernor governor = VMessagePlugin.get().getLoadGovernor();
+                                    StringBuilder sinks = new StringBuilder();
+                                    for (EventBus.SinkStats sink : bus.getSinkStats()) {
+                                        sinks.append("\n  %s: <#00ffff>%d</#00ffff> behind, <#00ffff>%d</#00ffff> handled, <#00ffff>%d</#00ffff> dropped"
+                                                .formatted(sink.name(), sink.lag(), sink.handled(), sink.dropped()));
                                     }
-                                    ctx.getSource().sendMessage(MiniMessage.miniMessage().deserialize("<#00ffff>vMessage</#00ffff> config reloaded!"));
+                                    ctx.getSource().sendMessage(MiniMessage.miniMessage().deserialize("""
+                            <#00ffff>vMessage</#00ffff> Stats (since the last reload):
+                            Component cache: <#00ffff>%d/%d</#00ffff> entries, <#00ffff>%d</#00ffff> hits, <#00ffff>%d</#00ffff> misses (<#00ffff>%d%%</#00ffff> hit rate)
+                            Mute lookups (since startup): <#00ffff>%d</#00ffff> running, <#00ffff>%d/%d</#00ffff> queued, <#00ffff>%d</#00ffff> done, <#00ffff>%d</#00ffff> failed, <#00ffff>%d</#00ffff> rejected, <#00ffff>%d</#00ffff> timed out
+                            Mute lookup latency: <#00ffff>%dms</#00ffff> average, <#00ffff>%dms</#00ffff> max
+                            Reply targets: <#00ffff>%d</#00ffff> entries, <#00ffff>%d</#00ffff> expired, <#00ffff>%d</#00ffff> evicted
+                            Chat lanes: <#00ffff>%d</#00ffff> lanes, <#00ffff>%d/%d</#00ffff> queued in the fullest, <#00ffff>%d</#00ffff> handled in <#00ffff>%dµs</#00ffff> on the lane (<#00ffff>%dµs</#00ffff> with mute lookups) average, <#00ffff>%d</#00ffff> refused
+                            Fan-out (<#00ffff>%s</#00ffff>, <#00ffff>%d</#00ffff> threads): <#00ffff>%d</#00ffff> messages to <#00ffff>%d</#00ffff> players, last recipient after <#00ffff>%dµs</#00ffff> average, <#00ffff>%dµs</#00ffff> max
+                            Load shedding: <#00ffff>%s</#00ffff> (%s), fullest chat lane <#00ffff>%d%%</#00ffff> full, <#00ffff>%dms</#00ffff> latency
+                            Join/leave/change messages: <#00ffff>%s</#00ffff>, <#00ffff>%d</#00ffff> waiting for a summary
+                            Events (since startup): <#00ffff>%d</#00ffff> chat, <#00ffff>%d</#00ffff> join, <#00ffff>%d</#00ffff> leave, <#00ffff>%d</#00ffff> change, <#00ffff>%d</#00ffff> broadcast, <#00ffff>%d</#00ffff> from QQ
+                            Event sinks (<#00ffff>%d</#00ffff> slots):%s"""
+                                            .formatted(cache.getSize(), cache.getMaxSize(), hits, misses, lookups == 0 ? 0 : hits * 100 / lookups,
+                                                    muteLookups.getActiveCount(), muteLookups.getQueueDepth(), muteLookups.getQueueSize(),
+                                                    muteLookups.getCompleted(), muteLookups.getFailed(), muteLookups.getRejected(), muteLookups.getTimedOut(),
+                                                    muteLookups.getAverageLatencyMillis(), muteLookups.getMaxLatencyMillis(),
+                                                    conversations.getSize(), conversations.getExpired(), conversations.getEvicted(),
+                                                    chat.getLaneCount(), chat.getMaxQueueDepth(), chat.getQueueSize(), chat.getProcessed(),
+                                                    chat.getAverageLaneMicros(), chat.getAverageTotalMicros(), chat.getRejected(),
+                                                    ConfigManager.get().getRuntime().fanOut().mode(), fanOut.getParallelism(), fanOut.getDeliveries(), fanOut.getRecipients(),
+                                                    fanOut.getAverageMicros(), fanOut.getMaxMicros(),
+                                                    governor.getLevel(), governor.getLevel().getDescription(), governor.getQueuePercent(), governor.getLatencyMillis(),
+                                                    notices.isCoalescing() ? "summarized" : "one by one", notices.getPending(),
+                                                    events.getCount(MessageEvent.Kind.CHAT), events.getCount(MessageEvent.Kind.JOIN), events.getCount(MessageEvent.Kind.LEAVE),
+                                                    events.getCount(MessageEvent.Kind.CHANGE), events.getCount(MessageEvent.Kind.BROADCAST), events.getCount(MessageEvent.Kind.QQ),
+                                                    bus.getBufferSize(), sinks)));
                                     return 1;
                                 })
                         )
@@ -75,13 +152,7 @@ public class VMessageCommand {
                         .then(LiteralArgumentBuilder.<CommandSource>literal("say")
                                 .requires(src -> src.hasPermission("vmessage.command.say"))
                                 .then(RequiredArgumentBuilder.<CommandSource, String>argument("player", StringArgumentType.word())
-                                        .suggests((ctx, builder) -> {
-                                            VMessagePlugin.get().getServer().getAllPlayers().stream()
-                                                    .map(Player::getUsername)
-                                                    .filter(name -> name.toLowerCase().startsWith(builder.getRemainingLowerCase()))
-                                                    .forEach(builder::suggest);
-                                            return builder.buildFuture();
-                                        })
+                                        .suggests((ctx, builder) -> CommandHandler.suggestPlayerNames(builder))
                                         .then(RequiredArgumentBuilder.<CommandSource, String>argument("message", StringArgumentType.greedyString())
                                                 .executes(ctx -> {
                                                     String playerName = StringArgumentType.getString(ctx, "player");
@@ -115,13 +186,7 @@ public class VMessageCommand {
                                             return 1;
                                         })
                                         .then(RequiredArgumentBuilder.<CommandSource, String>argument("player", StringArgumentType.word())
-                                                .suggests((ctx, builder) -> {
-                                                    VMessagePlugin.get().getServer().getAllPlayers().stream()
-                                                            .map(Player::getUsername)
-                                                            .filter(name -> name.toLowerCase().startsWith(builder.getRemainingLowerCase()))
-                                                            .forEach(builder::suggest);
-                                                    return builder.buildFuture();
-                                                })
+                                                .suggests((ctx, builder) -> CommandHandler.suggestPlayerNames(builder))
                                                 .executes(ctx -> {
                                                     String playerName = StringArgumentType.getString(ctx, "player");
                                                     Optional<Player> target = VMessagePlugin.get().getServer().getPlayer(playerName);
@@ -148,13 +213,7 @@ public class VMessageCommand {
                                             return 1;
                                         })
                                         .then(RequiredArgumentBuilder.<CommandSource, String>argument("player", StringArgumentType.word())
-                                                .suggests((ctx, builder) -> {
-                                                    VMessagePlugin.get().getServer().getAllPlayers().stream()
-                                                            .map(Player::getUsername)
-                                                            .filter(name -> name.toLowerCase().startsWith(builder.getRemainingLowerCase()))
-                                                            .forEach(builder::suggest);
-                                                    return builder.buildFuture();
-                                                })
+                                                .suggests((ctx, builder) -> CommandHandler.suggestPlayerNames(builder))
                                                 .executes(ctx -> {
                                                     String playerName = StringArgumentType.getString(ctx, "player");
                                                     Optional<Player> target = VMessagePlugin.get().getServer().getPlayer(playerName);
@@ -181,13 +240,7 @@ public class VMessageCommand {
                                             return 1;
                                         })
                                         .then(RequiredArgumentBuilder.<CommandSource, String>argument("player", StringArgumentType.word())
-                                                .suggests((ctx, builder) -> {
-                                                    VMessagePlugin.get().getServer().getAllPlayers().stream()
-                                                            .map(Player::getUsername)
-                                                            .filter(name -> name.toLowerCase().startsWith(builder.getRemainingLowerCase()))
-                                                            .forEach(builder::suggest);
-                                                    return builder.buildFuture();
-                                                })
+                                                .suggests((ctx, builder) -> CommandHandler.suggestPlayerNames(builder))
                                                 .then(RequiredArgumentBuilder.<CommandSource, String>argument("old-server", StringArgumentType.word())
                                                         .executes(ctx -> {
                                                             String playerName = StringArgumentType.getString(ctx, "player");
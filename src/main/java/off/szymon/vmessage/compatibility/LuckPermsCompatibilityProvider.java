@@ -16,6 +16,12 @@ import com.velocitypowered.api.proxy.Player;
 import net.luckperms.api.LuckPerms;
 import net.luckperms.api.LuckPermsProvider;
 import net.luckperms.api.cacheddata.CachedMetaData;
+import net.luckperms.api.event.node.NodeMutateEvent;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
+import net.luckperms.api.model.user.User;
+
+import java.util.UUID;
+import java.util.function.Consumer;
 
 public class LuckPermsCompatibilityProvider {
 
@@ -29,5 +35,26 @@ public class LuckPermsCompatibilityProvider {
         return new PlayerData(lp.getPlayerAdapter(Player.class).getMetaData(player));
     }
 
+    /**
+     * Calls the listener with the UUID of every user whose permission or meta data LuckPerms recalculated
+     */
+    public void onUserDataRecalculate(Object plugin, Consumer<UUID> listener) {
+        lp.getEventBus().subscribe(plugin, UserDataRecalculateEvent.class, e -> listener.accept(e.getUser().getUniqueId()));
+    }
+
+    /**
+     * Calls {@code userListener} with the UUID of a user whose nodes changed, or {@code groupListener} when a group's
+     * nodes changed (which can affect any user)
+     */
+    public void onNodeMutate(Object plugin, Consumer<UUID> userListener, Runnable groupListener) {
+        lp.getEventBus().subscribe(plugin, NodeMutateEvent.class, e -> {
+            if (e.getTarget() instanceof User user) {
+                userListener.accept(user.getUniqueId());
+            } else if (e.isGroup()) {
+                groupListener.run();
+            }
+        });
+    }
+
     public record PlayerData(CachedMetaData metaData) {}
 }
@@ -14,6 +14,7 @@ package off.szymon.vmessage.compatibility.mute;
 
 import com.velocitypowered.api.proxy.Player;
 
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 public class EmptyMuteCompatibilityProvider implements MutePluginCompatibilityProvider {
@@ -28,4 +29,9 @@ public class EmptyMuteCompatibilityProvider implements MutePluginCompatibilityPr
         return CompletableFuture.completedFuture(null);
     }
 
+    @Override
+    public CompletableFuture<Optional<Mute>> lookupMute(Player player) {
+        return CompletableFuture.completedFuture(Optional.empty());
+    }
+
 }
@@ -15,20 +15,26 @@ package off.szymon.vmessage.compatibility.mute;
 import com.velocitypowered.api.proxy.Player;
 import off.szymon.vmessage.VMessagePlugin;
 import space.arim.libertybans.api.*;
+import space.arim.libertybans.api.event.PostPardonEvent;
+import space.arim.libertybans.api.event.PostPunishEvent;
 import space.arim.libertybans.api.punish.Punishment;
 import space.arim.omnibus.Omnibus;
 import space.arim.omnibus.OmnibusProvider;
+import space.arim.omnibus.events.ListenerPriorities;
 
 import java.time.Instant;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class LibertyBansCompatibilityProvider implements MutePluginCompatibilityProvider {
 
+    private final Omnibus omnibus;
     private final LibertyBans lb;
 
     public LibertyBansCompatibilityProvider() {
-        Omnibus omnibus = OmnibusProvider.getOmnibus();
+        omnibus = OmnibusProvider.getOmnibus();
         lb = omnibus.getRegistry()
                 .getProvider(LibertyBans.class)
                 .orElseThrow();
@@ -44,26 +50,43 @@ public class LibertyBansCompatibilityProvider implements MutePluginCompatibility
 
     @Override
     public CompletableFuture<Mute> getMute(Player player) {
-        return getPunishment(player).thenApply(punishmentOpt -> {
-            Punishment punishment = punishmentOpt.orElse(null);
-            if (punishment == null) return null;
+        return getPunishment(player).thenApply(punishmentOpt -> punishmentOpt.map(punishment -> toMute(player, punishment)).orElse(null));
+    }
 
-            String playerName = player.getUsername();
-            String reason = punishment.getReason() != null ? punishment.getReason() : "No reason specified";
-            String moderator;
-            Operator operator = punishment.getOperator();
-            if (operator instanceof PlayerOperator playerOp) {
-                Player p = VMessagePlugin.get().getServer().getPlayer(playerOp.getUUID()).orElse(null);
-                moderator = p != null ? p.getUsername() : "Unknown Player";
-            } else if (operator instanceof ConsoleOperator) {
-                moderator = "Console";
-            } else {
-                moderator = "Unknown";
-            }
-            Instant endDate = punishment.getEndDate();
+    @Override
+    public CompletableFuture<Optional<Mute>> lookupMute(Player player) {
+        return getPunishment(player).thenApply(punishmentOpt -> punishmentOpt
+                .filter(punishment -> !punishment.isExpired())
+                .map(punishment -> toMute(player, punishment)));
+    }
 
-            return new Mute(playerName, reason, moderator, endDate);
-        });
+    @Override
+    public void onMuteChange(Consumer<UUID> listener) {
+        omnibus.getEventBus().registerListener(PostPunishEvent.class, ListenerPriorities.NORMAL, e -> notifyMuteChange(e.getPunishment(), listener));
+        omnibus.getEventBus().registerListener(PostPardonEvent.class, ListenerPriorities.NORMAL, e -> notifyMuteChange(e.getPunishment(), listener));
+    }
+
+    private static void notifyMuteChange(Punishment punishment, Consumer<UUID> listener) {
+        if (punishment.getType() != PunishmentType.MUTE) return;
+        listener.accept(punishment.getVictim() instanceof PlayerVictim playerVictim ? playerVictim.getUUID() : null);
+    }
+
+    private Mute toMute(Player player, Punishment punishment) {
+        String playerName = player.getUsername();
+        String reason = punishment.getReason() != null ? punishment.getReason() : "No reason specified";
+        String moderator;
+        Operator operator = punishment.getOperator();
+        if (operator instanceof PlayerOperator playerOp) {
+            Player p = VMessagePlugin.get().getServer().getPlayer(playerOp.getUUID()).orElse(null);
+            moderator = p != null ? p.getUsername() : "Unknown Player";
+        } else if (operator instanceof ConsoleOperator) {
+            moderator = "Console";
+        } else {
+            moderator = "Unknown";
+        }
+        Instant endDate = punishment.getEndDate();
+
+        return new Mute(playerName, reason, moderator, endDate);
     }
 
     private CompletableFuture<Optional<Punishment>> getPunishment(Player player) {
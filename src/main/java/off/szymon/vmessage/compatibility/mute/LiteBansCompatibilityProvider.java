@@ -15,21 +15,28 @@ package off.szymon.vmessage.compatibility.mute;
 import com.velocitypowered.api.proxy.Player;
 import litebans.api.Database;
 import litebans.api.Entry;
+import litebans.api.Events;
 
 import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public class LiteBansCompatibilityProvider implements MutePluginCompatibilityProvider {
 
     private final Database database;
+    // LiteBans' Database calls block on JDBC, so they run on the mute lookup threads
+    private final MuteLookupExecutor executor;
 
-    public LiteBansCompatibilityProvider() {
-        database = Database.get();
+    public LiteBansCompatibilityProvider(MuteLookupExecutor executor) {
+        this.database = Database.get();
+        this.executor = executor;
     }
 
     @Override
     public CompletableFuture<Boolean> isMuted(Player player) {
-        return CompletableFuture.supplyAsync(() ->
+        return executor.supply(() ->
                 database.isPlayerMuted(
                         player.getUniqueId(),
                         player.getRemoteAddress().getAddress().toString(),
@@ -40,18 +47,59 @@ public class LiteBansCompatibilityProvider implements MutePluginCompatibilityPro
 
     @Override
     public CompletableFuture<Mute> getMute(Player player) {
-        return CompletableFuture.supplyAsync(() -> {
-            Entry entry = Database.get().getMute(
-                    player.getUniqueId(),
-                    player.getRemoteAddress().getAddress().toString(),
-                    player.getCurrentServer().get().getServerInfo().getName()
-            );
-            String playerName = player.getUsername();
-            String reason = entry.getReason() != null ? entry.getReason() : "No reason specified";
-            String moderator = entry.getExecutorName() != null ? entry.getExecutorName() : "Unknown";
-            Instant endDate = Instant.ofEpochSecond(entry.getDateEnd());
-            return new Mute(playerName, reason, moderator, endDate);
+        return executor.supply(() -> toMute(player, queryMute(player)));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Mute>> lookupMute(Player player) {
+        // getMute only returns active mutes, so a single query answers both questions
+        return executor.supply(() -> {
+            Entry entry = queryMute(player);
+            return entry != null ? Optional.of(toMute(player, entry)) : Optional.empty();
+        });
+    }
+
+    @Override
+    public void onMuteChange(Consumer<UUID> listener) {
+        Events.get().register(new Events.Listener() {
+            @Override
+            public void entryAdded(Entry entry) {
+                notifyMuteChange(entry, listener);
+            }
+
+            @Override
+            public void entryRemoved(Entry entry) {
+                notifyMuteChange(entry, listener);
+            }
         });
     }
 
-}
\ No newline at end of file
+    private static void notifyMuteChange(Entry entry, Consumer<UUID> listener) {
+        if (!"mute".equals(entry.getType())) return;
+        UUID uuid = null;
+        try {
+            // IP mutes have no UUID, or a placeholder one
+            if (entry.getUuid() != null) uuid = UUID.fromString(entry.getUuid());
+        } catch (IllegalArgumentException ignored) {
+        }
+        listener.accept(uuid);
+    }
+
+    private Entry queryMute(Player player) {
+        return database.getMute(
+                player.getUniqueId(),
+                player.getRemoteAddress().getAddress().toString(),
+                player.getCurrentServer().get().getServerInfo().getName()
+        );
+    }
+
+    private static Mute toMute(Player player, Entry entry) {
+        String playerName = player.getUsername();
+        String reason = entry.getReason() != null ? entry.getReason() : "No reason specified";
+        String moderator = entry.getExecutorName() != null ? entry.getExecutorName() : "Unknown";
+        // LiteBans stores the end in milliseconds, and 0 or -1 for permanent mutes
+        Instant endDate = entry.getDateEnd() > 0 ? Instant.ofEpochMilli(entry.getDateEnd()) : null;
+        return new Mute(playerName, reason, moderator, endDate);
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+
+package off.szymon.vmessage.compatibility.mute;
+
+import com.velocitypowered.api.event.PostOrder;
+import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.connection.DisconnectEvent;
+import com.velocitypowered.api.event.player.ServerPostConnectEvent;
+import com.velocitypowered.api.proxy.Player;
+import off.szymon.vmessage.VMessagePlugin;
+import off.szymon.vmessage.compatibility.mute.MutePluginCompatibilityProvider.Mute;
+import off.szymon.vmessage.config.ConfigManager;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Remembers the mute state of online players so chat does not wait on the mute plugin's database.
+ * <p>
+ * The state is fetched when a player connects to a server (mutes can be per server) and kept until the mute ends,
+ * the mute plugin reports a mute or unmute for the player, or {@code mute-cache-max-age} passes.
+ * Lookups that fail or take longer than {@code mute-lookup.timeout} are not cached.
+ */
+public class MuteCache {
+
+    private final MutePluginCompatibilityProvider provider;
+    private final MuteLookupExecutor lookupExecutor;
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    // Running lookups, joined by later cache misses for the same player and server
+    private final Map<UUID, Lookup> inFlight = new ConcurrentHashMap<>();
+
+    public MuteCache(MutePluginCompatibilityProvider provider, MuteLookupExecutor lookupExecutor) {
+        this.provider = provider;
+        this.lookupExecutor = lookupExecutor;
+        provider.onMuteChange(uuid -> {
+            if (uuid != null) {
+                invalidate(uuid);
+            } else {
+                invalidateAll();
+            }
+        });
+    }
+
+    /**
+     * @return the player's active mute, or empty if they are not muted. Completed right away if the state is cached.
+     * If the lookup fails or times out the future is empty with {@code on-failure: ALLOW}, and failed otherwise.
+     */
+    public CompletableFuture<Optional<Mute>> get(Player player) {
+        Optional<Mute> cached = getIfPresent(player);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+        CompletableFuture<Optional<Mute>> future = load(player);
+        if (!ConfigManager.get().getRuntime().muteLookup().allowOnFailure()) return future;
+        return future.exceptionally(throwable -> Optional.empty());
+    }
+
+    /**
+     * @return the cached mute state, or null if it is not cached or no longer valid
+     */
+    public @Nullable Optional<Mute> getIfPresent(Player player) {
+        Entry entry = entries.get(player.getUniqueId());
+        if (entry == null) return null;
+        if (!entry.isValidFor(currentServer(player), System.currentTimeMillis())) {
+            entries.remove(player.getUniqueId(), entry);
+            return null;
+        }
+        return entry.mute();
+    }
+
+    /**
+     * Fetches the player's mute state in the background
+     */
+    public void prefetch(Player player) {
+        load(player);
+    }
+
+    public void invalidate(UUID uniqueId) {
+        Lookup lookup = inFlight.remove(uniqueId);
+        if (lookup != null) lookup.invalidated = true;
+        entries.remove(uniqueId);
+    }
+
+    public void invalidateAll() {
+        for (UUID uniqueId : inFlight.keySet()) {
+            Lookup lookup = inFlight.remove(uniqueId);
+            if (lookup != null) lookup.invalidated = true;
+        }
+        entries.clear();
+    }
+
+    /**
+     * Starts a lookup, or joins the one already running for the player's current server
+     */
+    private CompletableFuture<Optional<Mute>> load(Player player) {
+        UUID uniqueId = player.getUniqueId();
+        String server = currentServer(player);
+        Lookup lookup = new Lookup(server);
+        Lookup running = inFlight.compute(uniqueId, (uuid, current) ->
+                current != null && Objects.equals(current.server, server) ? current : lookup);
+        if (running != lookup) return running.future;
+
+        long timeout = ConfigManager.get().getRuntime().muteLookup().timeoutMillis();
+        CompletableFuture<Optional<Mute>> result;
+        try {
+            result = provider.lookupMute(player);
+        } catch (RuntimeException e) {
+            // Joined lookups must still complete
+            result = CompletableFuture.failedFuture(e);
+        }
+        result.orTimeout(timeout, TimeUnit.MILLISECONDS).whenComplete((mute, throwable) -> {
+            if (throwable != null) {
+                if (throwable instanceof TimeoutException) {
+                    lookupExecutor.recordTimeout();
+                    VMessagePlugin.get().getLogger().warn("Looking up the mute of {} took longer than {}ms", player.getUsername(), timeout);
+                } else {
+                    VMessagePlugin.get().getLogger().warn("Failed to look up the mute of {}: {}", player.getUsername(), throwable.getMessage());
+                }
+            } else {
+                store(player, lookup, mute);
+            }
+            inFlight.remove(uniqueId, lookup);
+            if (throwable != null) {
+                lookup.future.completeExceptionally(throwable);
+            } else {
+                lookup.future.complete(mute);
+            }
+        });
+        return lookup.future;
+    }
+
+    private void store(Player player, Lookup lookup, Optional<Mute> mute) {
+        long maxAge = ConfigManager.get().getRuntime().muteCacheMaxAgeMillis();
+        if (maxAge == 0 || !player.isActive()) return;
+
+        long expiresAt = System.currentTimeMillis() + maxAge;
+        Instant endDate = mute.map(Mute::endDate).orElse(null);
+        if (hasEnd(endDate)) expiresAt = Math.min(expiresAt, toEpochMilliClamped(endDate));
+        Entry entry = new Entry(mute, lookup.server, expiresAt);
+        entries.put(player.getUniqueId(), entry);
+        // Invalidated while the lookup was running, the result may already be outdated
+        if (lookup.invalidated) entries.remove(player.getUniqueId(), entry);
+    }
+
+    /**
+     * Permanent mutes have no end date, or one the mute plugin uses as "never" (LibertyBans uses {@link Instant#MAX})
+     */
+    private static boolean hasEnd(@Nullable Instant endDate) {
+        return endDate != null && !endDate.equals(Instant.MAX) && !endDate.isBefore(Instant.EPOCH);
+    }
+
+    private static long toEpochMilliClamped(Instant instant) {
+        try {
+            return instant.toEpochMilli();
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static @Nullable String currentServer(Player player) {
+        return player.getCurrentServer().map(server -> server.getServerInfo().getName()).orElse(null);
+    }
+
+    @Subscribe(order = PostOrder.EARLY)
+    public void onServerConnect(ServerPostConnectEvent e) {
+        prefetch(e.getPlayer());
+    }
+
+    @Subscribe(order = PostOrder.LAST)
+    public void onDisconnect(DisconnectEvent e) {
+        inFlight.remove(e.getPlayer().getUniqueId());
+        entries.remove(e.getPlayer().getUniqueId());
+    }
+
+    private static final class Lookup {
+
+        final @Nullable String server;
+        final CompletableFuture<Optional<Mute>> future = new CompletableFuture<>();
+        // Set when the player's mute changed while this was running, its result is then not cached
+        volatile boolean invalidated;
+
+        Lookup(@Nullable String server) {
+            this.server = server;
+        }
+    }
+
+    private record Entry(Optional<Mute> mute, @Nullable String server, long expiresAt) {
+
+        boolean isValidFor(@Nullable String currentServer, long now) {
+            return now < expiresAt && Objects.equals(server, currentServer);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.compatibility.mute;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking mute plugin lookups (e.g. LiteBans' JDBC queries) on a few threads of their own,
+ * so a slow database cannot starve the common pool shared with every other plugin on the proxy.
+ * <p>
+ * Lookups wait in a bounded queue, once it is full new lookups fail right away instead of piling up.
+ */
+public class MuteLookupExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final int queueSize;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    public MuteLookupExecutor(int threads, int queueSize) {
+        this.queueSize = Math.max(1, queueSize);
+        AtomicInteger threadId = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+                Math.max(1, threads), Math.max(1, threads),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(this.queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "vMessage Mute Lookup #" + threadId.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> {
+                    rejected.incrementAndGet();
+                    throw new RejectedExecutionException("Mute lookup queue is full (" + this.queueSize + " waiting)");
+                }
+        );
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Runs the lookup on one of the mute lookup threads
+     *
+     * @return a future completed with the lookup's result, or failed if it threw or the queue is full
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> lookup) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                T result;
+                try {
+                    result = lookup.get();
+                } catch (Throwable t) {
+                    failed.incrementAndGet();
+                    recordLatency(System.nanoTime() - queuedAt);
+                    future.completeExceptionally(t);
+                    return;
+                }
+                completed.incrementAndGet();
+                recordLatency(System.nanoTime() - queuedAt);
+                future.complete(result);
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Counts a lookup that did not finish in time, the lookup itself keeps running
+     */
+    public void recordTimeout() {
+        timedOut.incrementAndGet();
+    }
+
+    private void recordLatency(long nanos) {
+        totalLatencyNanos.addAndGet(nanos);
+        maxLatencyNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getTimedOut() {
+        return timedOut.get();
+    }
+
+    /**
+     * @return the average time from queueing a lookup to its result, including time spent in the queue
+     */
+    public long getAverageLatencyMillis() {
+        long count = completed.get() + failed.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalLatencyNanos.get() / count);
+    }
+
+    public long getMaxLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos.get());
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
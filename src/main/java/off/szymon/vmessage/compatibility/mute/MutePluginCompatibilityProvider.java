@@ -14,8 +14,13 @@ package off.szymon.vmessage.compatibility.mute;
 
 import com.velocitypowered.api.proxy.Player;
 
+import org.jetbrains.annotations.Nullable;
+
 import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface MutePluginCompatibilityProvider {
 
@@ -23,6 +28,23 @@ public interface MutePluginCompatibilityProvider {
 
     CompletableFuture<Mute> getMute(Player player);
 
+    /**
+     * Checks whether the player is muted and fetches the mute in one lookup
+     *
+     * @return the active mute, or empty if the player is not muted
+     */
+    default CompletableFuture<Optional<Mute>> lookupMute(Player player) {
+        return isMuted(player).thenCompose(muted -> muted
+                ? getMute(player).thenApply(Optional::ofNullable)
+                : CompletableFuture.completedFuture(Optional.empty()));
+    }
+
+    /**
+     * Calls the listener whenever a mute is added or removed by the mute plugin, with the UUID of the player
+     * or null if the mute is not tied to one player (e.g. an IP mute)
+     */
+    default void onMuteChange(Consumer<@Nullable UUID> listener) {}
+
     record Mute(String playerName, String reason, String moderator, Instant endDate) {
 
         public boolean isExpired() {
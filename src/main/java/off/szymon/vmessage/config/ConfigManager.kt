@@ -52,6 +52,7 @@ class ConfigManager {
                     Thanks for downloading my plugin! I hope you like it!
                     MiniMessage is supported for formatting in all messages.
                     Placeholders are parsed before MiniMessage so you can use them in your format.
+                    Every chat, join, leave, change, broadcast and muted format can also use %online%, %server_online%, %server_alias% and %ping%.
                     For in-depth explanation of the configuration options, visit: https://github.com/szymon-off/vMessage/wiki/Configuration-(config.yml)
                     
                     ⚠️ If you have used vMessage before v1.8.0, the contents of this file may be malformed ⚠️
@@ -67,6 +68,11 @@ class ConfigManager {
     lateinit var config: MainConfig
         private set
 
+    /** Compiled snapshot read by the message hot paths, replaced as a whole on every load */
+    @Volatile
+    lateinit var runtime: RuntimeConfig
+        private set
+
     private lateinit var root: CommentedConfigurationNode
 
     init {
@@ -74,6 +80,7 @@ class ConfigManager {
         load()
     }
 
+    @Synchronized
     fun load() {
         var fileCreated = false
         if (!file.exists()) {
@@ -89,6 +96,7 @@ class ConfigManager {
         }
         config.backupConfig = false
         save()
+        runtime = RuntimeConfig.compile(config, root)
     }
 
     fun save() {
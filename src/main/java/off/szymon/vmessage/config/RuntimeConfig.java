@@ -0,0 +1,375 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.config;
+
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import off.szymon.vmessage.bus.MessageEvent;
+import off.szymon.vmessage.channel.ChatChannel;
+import off.szymon.vmessage.config.tree.MainConfig;
+import off.szymon.vmessage.config.tree.MuteLookupFailurePolicy;
+import off.szymon.vmessage.format.ComponentCache;
+import off.szymon.vmessage.format.MiniMessageGuard;
+import off.szymon.vmessage.format.PlaceholderType;
+import off.szymon.vmessage.format.Template;
+import off.szymon.vmessage.pipeline.FanOut.Mode;
+import off.szymon.vmessage.pipeline.LoadGovernor;
+import off.szymon.vmessage.onebot.QqMessageKind;
+import org.spongepowered.configurate.CommentedConfigurationNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable view of the configuration used on the message hot paths.
+ * <p>
+ * A new instance is compiled on every (re)load and published by {@link ConfigManager} in a single volatile write,
+ * so readers always see a complete configuration without taking any locks.
+ */
+public record RuntimeConfig(
+        ServerAliases serverAliases,
+        Map<String, String> metaPlaceholders, // Placeholder, Meta key
+        Chat chat,
+        Notice join,
+        Notice leave,
+        Notice change,
+        Broadcast broadcast,
+        PrivateMessage message,
+        OneBot onebot,
+        ComponentCache componentCache,
+        MiniMessageGuard miniMessageGuard,
+        String guardRejectedMessage,
+        long muteCacheMaxAgeMillis,
+        MuteLookup muteLookup,
+        int maxNameSuggestions,
+        ChatPipeline chatPipeline,
+        FanOut fanOut,
+        boolean chatLog,
+        Channels channels,
+        StaffChat staffChat,
+        String socialSpyFormat,
+        Coalescing coalescing,
+        LoadShedding loadShedding
+) {
+
+    public record Chat(boolean enabled, Template format, List<FormatVariant> variants, Template mutedMessage, boolean allowLegacyColorCodes, boolean allowMiniMessage) {}
+
+    /**
+     * @param serverGroups server name, the group it is in
+     */
+    public record Channels(
+            boolean enabled,
+            ChatChannel defaultChannel,
+            String globalPrefix,
+            Map<String, String> serverGroups,
+            String globalName,
+            String groupName,
+            String localName
+    ) {
+        /**
+         * @return what %channel% is rendered as
+         */
+        public String name(ChatChannel channel, String group) {
+            return switch (channel) {
+                case GLOBAL -> globalName;
+                case GROUP -> groupName.replace("%group%", group);
+                case LOCAL -> localName;
+            };
+        }
+    }
+
+    /**
+     * A chat format only shown to players with {@code permission}
+     */
+    public record FormatVariant(String permission, Template format) {}
+
+    /**
+     * @param allowOnFailure whether chat goes through as unmuted when a lookup fails or times out
+     */
+    public record MuteLookup(long timeoutMillis, boolean allowOnFailure, String failedMessage) {}
+
+    public record ChatPipeline(String busyMessage) {}
+
+    public record FanOut(Mode mode, int chunkSize) {}
+
+    public record Notice(boolean enabled, Template format) {}
+
+    /**
+     * @param threshold join, leave and change messages per second above which they are collected into summaries
+     * @param window    how many seconds are collected into each summary
+     */
+    public record Coalescing(boolean enabled, int threshold, int window, Template join, Template leave, Template change) {
+        public Template format(MessageEvent.Kind kind) {
+            return switch (kind) {
+                case JOIN -> join;
+                case LEAVE -> leave;
+                default -> change;
+            };
+        }
+    }
+
+    /**
+     * @param queuePercent   for each level above normal, how full the fullest chat lane must be, in percent
+     * @param latencyMillis  for each level above normal, the average chat or fan-out latency that reaches it
+     * @param recoverAfter   seconds under a level before going down one
+     */
+    public record LoadShedding(boolean enabled, List<Integer> queuePercent, List<Integer> latencyMillis, int recoverAfter) {
+        public LoadGovernor.Level level(int queue, long latency) {
+            LoadGovernor.Level[] levels = LoadGovernor.Level.values();
+            for (int i = levels.length - 1; i > 0; i--) {
+                if (queue >= queuePercent.get(i - 1) || latency >= latencyMillis.get(i - 1)) return levels[i];
+            }
+            return LoadGovernor.Level.NORMAL;
+        }
+    }
+
+    // One threshold per level above normal, a missing or non positive threshold is never reached
+    private static List<Integer> thresholds(List<Integer> configured) {
+        List<Integer> thresholds = new ArrayList<>();
+        for (int i = 1; i < LoadGovernor.Level.values().length; i++) {
+            int threshold = i <= configured.size() ? configured.get(i - 1) : 0;
+            thresholds.add(threshold > 0 ? threshold : Integer.MAX_VALUE);
+        }
+        return List.copyOf(thresholds);
+    }
+
+    public record Broadcast(Template format, boolean allowLegacyColorCodes, boolean allowMiniMessage) {}
+
+    public record StaffChat(Template format, boolean allowLegacyColorCodes, boolean allowMiniMessage) {}
+
+    public record PrivateMessage(
+            String senderFormat,
+            String receiverFormat,
+            boolean allowLegacyColorCodes,
+            boolean allowMiniMessage,
+            long replyExpiryMillis,
+            int replyMaxEntries,
+            OfflineMessages offline
+    ) {}
+
+    public record OfflineMessages(boolean enabled, int maxMessagesPerPlayer, String sentNotice, String fullMessage, String deliveredHeader) {}
+
+    public record OneBot(
+            boolean enabled,
+            String apiUrl,
+            String groupId,
+            String accessTokenSend,
+            String accessTokenCallback,
+            boolean nicknameClean,
+            boolean stripFormattingInQq,
+            boolean debug,
+            ForwardToQq forwardToQq,
+            boolean forwardToGame,
+            String toGameFormat
+    ) {}
+
+    public record ForwardToQq(
+            boolean chat,
+            boolean join,
+            boolean leave,
+            boolean change,
+            boolean broadcast,
+            int leaveDelay,
+            Map<QqMessageKind, Template> formats
+    ) {
+        public Template format(QqMessageKind kind) {
+            return formats.get(kind);
+        }
+    }
+
+    public String parseAlias(String serverName) {
+        return serverAliases.resolve(serverName);
+    }
+
+    /**
+     * @param alias a result of {@link #parseAlias(String)}
+     * @return the alias without its MiniMessage tags
+     */
+    public String plainAlias(String alias) {
+        return serverAliases.plain(alias);
+    }
+
+    // The only placeholders the QQ formats support, any other %placeholder% is removed when compiling
+    private static final Set<PlaceholderType> QQ_PLACEHOLDERS = Set.of(
+            PlaceholderType.PLAYER, PlaceholderType.MESSAGE, PlaceholderType.SERVER, PlaceholderType.OLD_SERVER, PlaceholderType.NEW_SERVER,
+            PlaceholderType.COUNT
+    );
+
+    // QQ only receives plain text, so any tags in the formats are removed once here
+    private static Template qqFormat(String format) {
+        return Template.compileStrippingUnknown(MiniMessage.miniMessage().stripTags(format), QQ_PLACEHOLDERS);
+    }
+
+    public static RuntimeConfig compile(MainConfig config, CommentedConfigurationNode root) {
+        Map<String, String> aliases = new LinkedHashMap<>();
+        for (Map.Entry<Object, CommentedConfigurationNode> entry : root.node("server-aliases").childrenMap().entrySet()) {
+            aliases.put(entry.getKey().toString(), entry.getValue().getString(""));
+        }
+
+        Map<String, String> metas = new HashMap<>();
+        for (Map.Entry<Object, CommentedConfigurationNode> entry : root.node("luck-perms-meta").childrenMap().entrySet()) {
+            metas.put("&" + entry.getKey().toString() + "&", entry.getValue().getString(""));
+        }
+
+        var messages = config.getMessages();
+        var chat = messages.getChat();
+        var broadcast = config.getCommands().getBroadcast();
+        var message = config.getCommands().getMessage();
+        var onebot = config.getOnebot();
+        var forward = onebot.getForwardToQq();
+        Map<QqMessageKind, Template> qqFormats = new EnumMap<>(QqMessageKind.class);
+        qqFormats.put(QqMessageKind.CHAT, qqFormat(forward.getFormat().getChat()));
+        qqFormats.put(QqMessageKind.JOIN, qqFormat(forward.getFormat().getJoin()));
+        qqFormats.put(QqMessageKind.LEAVE, qqFormat(forward.getFormat().getLeave()));
+        qqFormats.put(QqMessageKind.CHANGE, qqFormat(forward.getFormat().getChange()));
+        qqFormats.put(QqMessageKind.BROADCAST, qqFormat(forward.getFormat().getBroadcast()));
+        qqFormats.put(QqMessageKind.JOIN_SUMMARY, qqFormat(forward.getFormat().getJoinSummary()));
+        qqFormats.put(QqMessageKind.LEAVE_SUMMARY, qqFormat(forward.getFormat().getLeaveSummary()));
+        qqFormats.put(QqMessageKind.CHANGE_SUMMARY, qqFormat(forward.getFormat().getChangeSummary()));
+        List<FormatVariant> variants = new ArrayList<>();
+        for (var variant : chat.getVariants()) {
+            variants.add(new FormatVariant(variant.getPermission(), Template.compile(variant.getFormat(), metas)));
+        }
+        var channels = chat.getChannels();
+        var coalescing = messages.getCoalescing();
+        var loadShedding = config.getPerformance().getLoadShedding();
+        Map<String, String> serverGroups = new HashMap<>();
+        for (Map.Entry<String, List<String>> group : channels.getGroups().entrySet()) {
+            for (String server : group.getValue()) {
+                serverGroups.putIfAbsent(server, group.getKey());
+            }
+        }
+        var guard = config.getPerformance().getMiniMessageGuard();
+        var muteLookup = config.getPerformance().getMuteLookup();
+        Set<String> bannedTags = new HashSet<>();
+        for (String tag : guard.getBannedTags()) {
+            bannedTags.add(tag.toLowerCase(Locale.ROOT));
+        }
+
+        return new RuntimeConfig(
+                ServerAliases.compile(aliases),
+                Map.copyOf(metas),
+                new Chat(
+                        chat.getEnabled(),
+                        Template.compile(chat.getFormat(), metas),
+                        List.copyOf(variants),
+                        Template.compile(chat.getMutedMessage(), metas),
+                        chat.getAllowLegacyColorCodes(),
+                        chat.getAllowMiniMessage()
+                ),
+                new Notice(messages.getJoin().getEnabled(), Template.compile(messages.getJoin().getFormat(), metas)),
+                new Notice(messages.getLeave().getEnabled(), Template.compile(messages.getLeave().getFormat(), metas)),
+                new Notice(messages.getChange().getEnabled(), Template.compile(messages.getChange().getFormat(), metas)),
+                new Broadcast(
+                        Template.compile(broadcast.getFormat(), metas),
+                        broadcast.getAllowLegacyColorCodes(),
+                        broadcast.getAllowMiniMessage()
+                ),
+                new PrivateMessage(
+                        message.getFormat().getSender(),
+                        message.getFormat().getReceiver(),
+                        message.getAllowLegacyColorCodes(),
+                        message.getAllowMiniMessage(),
+                        Math.max(0, message.getReplyExpiry()) * 1000L,
+                        Math.max(0, message.getReplyMaxEntries()),
+                        new OfflineMessages(
+                                message.getOffline().getEnabled(),
+                                Math.max(0, message.getOffline().getMaxMessagesPerPlayer()),
+                                message.getOffline().getSentNotice(),
+                                message.getOffline().getFullMessage(),
+                                message.getOffline().getDeliveredHeader()
+                        )
+                ),
+                new OneBot(
+                        onebot.getEnabled(),
+                        onebot.getApiUrl(),
+                        onebot.getGroupId(),
+                        onebot.getAccessTokenSend(),
+                        onebot.getCallback().getAccessTokenCallback(),
+                        onebot.getNicknameClean(),
+                        onebot.getStripFormattingInQq(),
+                        onebot.getDebug(),
+                        new ForwardToQq(
+                                forward.getChat(),
+                                forward.getJoin(),
+                                forward.getLeave(),
+                                forward.getChange(),
+                                forward.getBroadcast(),
+                                forward.getLeaveDelay(),
+                                Collections.unmodifiableMap(qqFormats)
+                        ),
+                        onebot.getForwardToGame().getEnabled(),
+                        onebot.getForwardToGame().getFormat().getToGame()
+                ),
+                new ComponentCache(config.getPerformance().getComponentCacheSize()),
+                new MiniMessageGuard(
+                        guard.getEnabled(),
+                        guard.getMaxLength(),
+                        guard.getMaxTags(),
+                        guard.getMaxDepth(),
+                        bannedTags,
+                        MiniMessageGuard.Action.valueOf(guard.getAction().name())
+                ),
+                guard.getRejectedMessage(),
+                Math.max(0, config.getPerformance().getMuteCacheMaxAge()) * 1000L,
+                new MuteLookup(
+                        Math.max(1, muteLookup.getTimeout()),
+                        muteLookup.getOnFailure() == MuteLookupFailurePolicy.ALLOW,
+                        muteLookup.getFailedMessage()
+                ),
+                Math.max(1, config.getPerformance().getMaxNameSuggestions()),
+                new ChatPipeline(config.getPerformance().getChatPipeline().getBusyMessage()),
+                new FanOut(
+                        Mode.valueOf(config.getPerformance().getFanOut().getMode().name()),
+                        Math.max(1, config.getPerformance().getFanOut().getChunkSize())
+                ),
+                config.getPerformance().getEventBus().getChatLog(),
+                new Channels(
+                        channels.getEnabled(),
+                        ChatChannel.valueOf(channels.getDefaultChannel().name()),
+                        channels.getGlobalPrefix(),
+                        Map.copyOf(serverGroups),
+                        channels.getNames().getGlobal(),
+                        channels.getNames().getGroup(),
+                        channels.getNames().getLocal()
+                ),
+                new StaffChat(
+                        Template.compile(config.getCommands().getStaffChat().getFormat(), metas),
+                        config.getCommands().getStaffChat().getAllowLegacyColorCodes(),
+                        config.getCommands().getStaffChat().getAllowMiniMessage()
+                ),
+                config.getCommands().getSocialSpy().getFormat(),
+                new Coalescing(
+                        coalescing.getEnabled(),
+                        Math.max(1, coalescing.getThreshold()),
+                        Math.max(1, coalescing.getWindow()),
+                        Template.compile(coalescing.getJoin(), metas),
+                        Template.compile(coalescing.getLeave(), metas),
+                        Template.compile(coalescing.getChange(), metas)
+                ),
+                new LoadShedding(
+                        loadShedding.getEnabled(),
+                        thresholds(loadShedding.getQueueDepth()),
+                        thresholds(loadShedding.getLatency()),
+                        Math.max(1, loadShedding.getRecoverAfter())
+                )
+        );
+    }
+}
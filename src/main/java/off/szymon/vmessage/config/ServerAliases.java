@@ -0,0 +1,129 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.config;
+
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import off.szymon.vmessage.VMessagePlugin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Server name to alias rules from {@code server-aliases}.
+ * <p>
+ * A key is either an exact server name, a glob ({@code lobby-*}, {@code sw-solo-?}) or a regex prefixed with
+ * {@code regex:}. Exact names win over patterns, patterns are tried in config order. Matching is case-insensitive
+ * and every resolved name is cached, so a repeat lookup is a single hash probe.
+ */
+public final class ServerAliases {
+
+    private static final String REGEX_PREFIX = "regex:";
+    // Names come from the proxy's server list, this only stops unknown names (e.g. from commands) piling up
+    private static final int MAX_CACHED = 1024;
+
+    private final Map<String, String> exact; // Lowercase server name, Server alias
+    private final List<Rule> rules;
+    private final Map<String, String> plain; // Server alias, Server alias without MiniMessage tags
+    private final ConcurrentHashMap<String, String> resolved = new ConcurrentHashMap<>();
+
+    private ServerAliases(Map<String, String> exact, List<Rule> rules, Map<String, String> plain) {
+        this.exact = exact;
+        this.rules = rules;
+        this.plain = plain;
+    }
+
+    /**
+     * @param entries config key, alias in config order
+     */
+    public static ServerAliases compile(Map<String, String> entries) {
+        Map<String, String> exact = new HashMap<>();
+        List<Rule> rules = new ArrayList<>();
+        Map<String, String> plain = new HashMap<>();
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            String key = entry.getKey();
+            String alias = entry.getValue();
+            plain.computeIfAbsent(alias, MiniMessage.miniMessage()::stripTags);
+            if (key.startsWith(REGEX_PREFIX)) {
+                try {
+                    rules.add(new Rule(Pattern.compile(key.substring(REGEX_PREFIX.length()), Pattern.CASE_INSENSITIVE), alias));
+                } catch (PatternSyntaxException e) {
+                    VMessagePlugin.get().getLogger().warn("Invalid server alias pattern {}: {}", key, e.getMessage());
+                }
+            } else if (key.indexOf('*') != -1 || key.indexOf('?') != -1) {
+                rules.add(new Rule(Pattern.compile(globToRegex(key), Pattern.CASE_INSENSITIVE), alias));
+            } else {
+                // The first alias wins if several keys only differ in case
+                exact.putIfAbsent(key.toLowerCase(Locale.ROOT), alias);
+            }
+        }
+        return new ServerAliases(Map.copyOf(exact), List.copyOf(rules), Map.copyOf(plain));
+    }
+
+    private static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder(glob.length() + 8);
+        int literalStart = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                if (i > literalStart) regex.append(Pattern.quote(glob.substring(literalStart, i)));
+                regex.append(c == '*' ? ".*" : ".");
+                literalStart = i + 1;
+            }
+        }
+        if (literalStart < glob.length()) regex.append(Pattern.quote(glob.substring(literalStart)));
+        return regex.toString();
+    }
+
+    /**
+     * @return the alias for the server, or the name itself if no rule matches
+     */
+    public String resolve(String serverName) {
+        // Cached by the name as given, the result for a name never changes until the next reload
+        String alias = resolved.get(serverName);
+        if (alias != null) return alias;
+
+        alias = exact.get(serverName.toLowerCase(Locale.ROOT));
+        if (alias == null) {
+            for (Rule rule : rules) {
+                if (rule.pattern().matcher(serverName).matches()) {
+                    alias = rule.alias();
+                    break;
+                }
+            }
+        }
+        if (alias == null) alias = serverName;
+
+        if (resolved.size() >= MAX_CACHED) resolved.clear();
+        resolved.put(serverName, alias);
+        return alias;
+    }
+
+    /**
+     * @param alias a result of {@link #resolve(String)}
+     * @return the alias without its MiniMessage tags, for places that only show plain text
+     */
+    public String plain(String alias) {
+        String text = plain.get(alias);
+        if (text != null) return text;
+        // A server name without an alias, or an alias from before a reload
+        return alias.indexOf('<') == -1 ? alias : MiniMessage.miniMessage().stripTags(alias);
+    }
+
+    private record Rule(Pattern pattern, String alias) {}
+}
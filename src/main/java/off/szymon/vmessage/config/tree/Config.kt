@@ -23,10 +23,12 @@ class MainConfig {
     var commands = CommandsConfig()
     @Comment("If you want to use additional LuckPerms meta values you can add them here\nYou can then use them in placeholder format like this: &custom_name& [AMPERSAND not PERCENT]")
     var luckPermsMeta = LuckPermsMetaConfig()
-    @Comment("If you want to display a different name for a server you can add it here\nIt will then be used in the messages above instead of the server's actual name")
+    @Comment("If you want to display a different name for a server you can add it here\nIt will then be used in the messages above instead of the server's actual name\nKeys can also be patterns: 'lobby-*' (* any text, ? one character) or 'regex:sw-solo-\\d+'\nExact names are checked first, then patterns from top to bottom")
     var serverAliases = ServerAliasesConfig()
     @Comment("OneBot protocol integration for QQ group message syncing")
     var onebot = OneBotConfig()
+    @Comment("Tuning for servers with a lot of players, the defaults are fine for most setups")
+    var performance = PerformanceConfig()
     @Comment("Whether to check for updates on plugin startup")
     var checkUpdates = true
     @Comment("This option is here for safety when updating the plugin from an older version\nWARNING: This will overwrite the previous backup (config.yml.bak)")
@@ -40,19 +42,60 @@ class MessagesConfig {
     var join = JoinConfig()
     var leave = LeaveConfig()
     var change = ChangeConfig()
+    @Comment("When many players join, leave or switch servers at once (a backend crash, a proxy restart), their messages\nare collected and sent as one summary per server instead, both in game and to QQ")
+    var coalescing = NoticeCoalescingConfig()
 }
 
 @ConfigSerializable
 class ChatConfig {
     var enabled = true
-    @Comment("%player% - Player\n%message% - Message\n%server% - Player's Current Server\n%prefix% - LuckPerms Prefix\n%suffix% - LuckPerms Suffix")
-    var format = "%prefix% <b>%player%:</b> %message%"
+    @Comment("%player% - Player\n%message% - Message\n%server% - Player's Current Server\n%prefix% - LuckPerms Prefix\n%suffix% - LuckPerms Suffix\n%channel% - The channel the message was sent in, see channels below")
+    var format = "%channel%%prefix% <b>%player%:</b> %message%"
     @Comment("Whether to allow players to use MiniMessage in their messages")
     var allowMiniMessage = false
     @Comment("Whether to parse vanilla legacy color/format codes (&0-&f, &l, &n, &o, &r, &k, &m, &x etc.).")
     var allowLegacyColorCodes = true
     @Comment("The message to send when a muted player tries to send a message\n%player% - Player\n%message% - Message\n%server% - Player's Current Server\n%prefix% - LuckPerms Prefix\n%suffix% - LuckPerms Suffix\n%reason% - Reason for muting\n%end-date% - End date of the mute\n%moderator% - Moderator who muted the player")
     var mutedMessage = "<red>You are muted and cannot send messages.</red>"
+    @Comment("Other chat formats shown to players with a permission, e.g. to show staff the source server\nThe first variant whose permission a player has is used, everyone else (and the console) sees the format above\nEach variant is rendered once per message, no matter how many players see it")
+    var variants: List<ChatFormatVariantConfig> = listOf()
+    @Comment("Lets players chat with only the players on their server (local) or their group of servers (group)\nPlayers pick their channel with /channel, the console sees every channel")
+    var channels = ChatChannelsConfig()
+}
+
+@ConfigSerializable
+class ChatChannelsConfig {
+    var enabled = false
+    @Comment("If false, players will need the permission 'vmessage.command.channel' to use the /channel command")
+    var allowByDefault = true
+    @Comment("The channel players are in when they join: GLOBAL, GROUP or LOCAL")
+    var defaultChannel = ChatChannelType.GLOBAL
+    @Comment("Starting a message with this sends it to everyone, whatever channel the player is in\nLeave empty to disable")
+    var globalPrefix = "!"
+    @Comment("Servers that share a group channel, by their actual names (not aliases)\nPlayers on a server that is in no group chat locally when they pick the group channel")
+    var groups: Map<String, List<String>> = mapOf("survival" to listOf("survival", "survival_nether"))
+    @Comment("How %channel% is shown for each channel\n%group% - The server group")
+    var names = ChatChannelNamesConfig()
+}
+
+@ConfigSerializable
+class ChatChannelNamesConfig {
+    var global = ""
+    var group = "<gray>[%group%]</gray> "
+    var local = "<gray>[Local]</gray> "
+}
+
+enum class ChatChannelType {
+    GLOBAL,
+    GROUP,
+    LOCAL
+}
+
+@ConfigSerializable
+class ChatFormatVariantConfig {
+    var permission = "vmessage.chat.variant.staff"
+    @Comment("Same placeholders as the chat format")
+    var format = "<gray>[%server%]</gray> %prefix% <b>%player%:</b> %message%"
 }
 
 @ConfigSerializable
@@ -76,6 +119,21 @@ class ChangeConfig {
     var format = "<dark_gray>(<gold>•<dark_gray>) <gray>%player% <dark_gray>(<gold>%old_server%→%new_server%<dark_gray>)"
 }
 
+@ConfigSerializable
+class NoticeCoalescingConfig {
+    var enabled = true
+    @Comment("How many join, leave and change messages per second start summaries, they stop once the rate is back under it")
+    var threshold = 10
+    @Comment("How many seconds of messages go into each summary")
+    var window = 5
+    @Comment("%count% - Number of Players\n%server% - The Server They Joined")
+    var join = "<dark_gray>(<green>+<dark_gray>) <gray>%count% players joined %server%"
+    @Comment("%count% - Number of Players\n%server% - The Server They Left")
+    var leave = "<dark_gray>(<red>-<dark_gray>) <gray>%count% players left %server%"
+    @Comment("%count% - Number of Players\n%old_server% - Their Previous Server\n%new_server% - Their New Server")
+    var change = "<dark_gray>(<gold>•<dark_gray>) <gray>%count% players moved <dark_gray>(<gold>%old_server%→%new_server%<dark_gray>)"
+}
+
 /* Commands Config */
 @ConfigSerializable
 class CommandsConfig {
@@ -83,6 +141,12 @@ class CommandsConfig {
     var broadcast = BroadcastConfig()
     @Comment("/message, /msg, /whisper, /w")
     var message = MessageConfig()
+    @Comment("/ignore")
+    var ignore = IgnoreConfig()
+    @Comment("/staffchat, /sc")
+    var staffChat = StaffChatConfig()
+    @Comment("/socialspy")
+    var socialSpy = SocialSpyConfig()
 }
 
 @ConfigSerializable
@@ -114,6 +178,54 @@ class MessageConfig {
     var allowByDefault = false
     @Comment("Whether to enable the /reply command\nIt will reply to the last person who sent you a message")
     var enableReplyCommand = true
+    @Comment("How long (in seconds) a player can still /reply after the last message in a conversation\nSet to 0 to keep it until the player disconnects")
+    var replyExpiry = 600
+    @Comment("How many players can have someone to /reply to at the same time, the least recently used are dropped first\nSet to 0 for no limit")
+    var replyMaxEntries = 10000
+    @Comment("Messages to offline players are kept and shown to them when they join\nOnly players that joined the proxy before can get offline messages")
+    var offline = OfflineMessagesConfig()
+}
+
+@ConfigSerializable
+class OfflineMessagesConfig {
+    var enabled = true
+    @Comment("How many unread messages a player can have, further messages are refused (0 for no limit)")
+    var maxMessagesPerPlayer = 50
+    @Comment("Sent to the sender after their message was stored\n%receiver% - Receiver")
+    var sentNotice = "<gray>%receiver% is offline, they will see your message when they join."
+    @Comment("Sent to the sender when the receiver has too many unread messages\n%receiver% - Receiver")
+    var fullMessage = "<red>%receiver% has too many unread messages."
+    @Comment("Shown to a player before the messages they got while offline\n%count% - Number of messages")
+    var deliveredHeader = "<#00ffff>You got %count% message(s) while you were offline:"
+}
+
+@ConfigSerializable
+class IgnoreConfig {
+    @Comment("Lets players hide chat, private messages and QQ messages from other players or QQ users\nPlayers with the permission 'vmessage.ignore.exempt' cannot be ignored")
+    var enabled = true
+    @Comment("If false, players will need the permission 'vmessage.command.ignore' to use the /ignore command\n" +
+            "If true, all players can use the /ignore command by default unless they have the permission 'vmessage.command.ignore' set to false")
+    var allowByDefault = true
+}
+
+@ConfigSerializable
+class StaffChatConfig {
+    @Comment("Chat only players with the permission 'vmessage.staffchat' (and the console) can see\n/staffchat <message> sends one message, /staffchat alone sends all chat there until used again")
+    var enabled = true
+    @Comment("%player% - Player\n%message% - Message\n%server% - Player's Current Server\n%prefix% - LuckPerms Prefix\n%suffix% - LuckPerms Suffix")
+    var format = "<red>[Staff]</red> <gray>[%server%]</gray> %prefix% <b>%player%:</b> %message%"
+    @Comment("Whether to allow MiniMessage in staff chat messages")
+    var allowMiniMessage = true
+    @Comment("Whether to parse vanilla legacy color/format codes (&0-&f, &l, &n, &o, &r, &k, &m, &x etc.).")
+    var allowLegacyColorCodes = true
+}
+
+@ConfigSerializable
+class SocialSpyConfig {
+    @Comment("Lets players with the permission 'vmessage.socialspy' see private messages between other players")
+    var enabled = true
+    @Comment("%sender% - Sender\n%receiver% - Receiver\n%message% - Message")
+    var format = "<dark_gray>[Spy]</dark_gray> <gray>%sender% → %receiver%: %message%"
 }
 
 @ConfigSerializable
@@ -137,6 +249,117 @@ class ServerAliasesConfig {
     var lobby2 = "Lobby"
 }
 
+/* Performance Config */
+@ConfigSerializable
+class PerformanceConfig {
+    @Comment("How many parsed messages to keep in memory for messages that repeat often (join, leave, change, muted)\nSet to 0 to disable the cache")
+    var componentCacheSize = 512
+    @Comment("Limits for MiniMessage typed by players, checked before the message is parsed\nOnly used where allow-mini-message is enabled, console messages are never limited")
+    var miniMessageGuard = MiniMessageGuardConfig()
+    @Comment("How long (in seconds) a player's mute state is remembered before it is looked up again\nMutes and unmutes made with LibertyBans or LiteBans are picked up right away, this is only a fallback\nSet to 0 to look it up on every message")
+    var muteCacheMaxAge = 300
+    @Comment("How mute states are looked up when they are not cached")
+    var muteLookup = MuteLookupConfig()
+    @Comment("How chat messages are handled, each player's messages are always handled in the order they were sent")
+    var chatPipeline = ChatPipelineConfig()
+    @Comment("How a message is sent to many players at once")
+    var fanOut = FanOutConfig()
+    @Comment("How shown messages are handed to OneBot, the chat log and other plugins, each on its own thread")
+    var eventBus = EventBusConfig()
+    @Comment("Drops less important messages while chat is falling behind, so chat itself stays fast")
+    var loadShedding = LoadSheddingConfig()
+    @Comment("The most player names suggested at once when tab completing a player argument")
+    var maxNameSuggestions = 50
+}
+
+@ConfigSerializable
+class MuteLookupConfig {
+    @Comment("How many lookups can run at the same time (LiteBans only, LibertyBans uses its own threads)\nChanges need a proxy restart")
+    var threads = 2
+    @Comment("How many lookups can wait for a free thread, lookups over this limit fail right away\nChanges need a proxy restart")
+    var queueSize = 256
+    @Comment("How long (in milliseconds) to wait for the mute plugin before giving up on a lookup")
+    var timeout = 2000
+    @Comment("What to do with a chat message when its mute lookup fails or times out\nALLOW - send it as if the player was not muted\nBLOCK - do not send it and tell the player to try again")
+    var onFailure = MuteLookupFailurePolicy.ALLOW
+    @Comment("The message to send when a message is blocked because the lookup failed")
+    var failedMessage = "<red>Your message was not sent, please try again in a moment."
+}
+
+@ConfigSerializable
+class ChatPipelineConfig {
+    @Comment("How many players' messages can be handled at the same time (0 for the number of CPU cores)\nChanges need a proxy restart")
+    var lanes = 0
+    @Comment("How many messages can wait in each lane, messages over this limit are refused\nChanges need a proxy restart")
+    var queueSize = 256
+    @Comment("The message to send when a chat message is refused because the server is too busy")
+    var busyMessage = "<red>Chat is busy right now, please try again in a moment."
+}
+
+@ConfigSerializable
+class FanOutConfig {
+    @Comment("PARALLEL - split the players into chunks and send the chunks at the same time\nSEQUENTIAL - send to one player after another on a single thread")
+    var mode = FanOutMode.PARALLEL
+    @Comment("How many players are in each chunk, audiences up to this size are always sent on a single thread")
+    var chunkSize = 256
+    @Comment("How many chunks can be sent at the same time (0 for the number of CPU cores)\nChanges need a proxy restart")
+    var threads = 0
+}
+
+enum class FanOutMode {
+    SEQUENTIAL,
+    PARALLEL
+}
+
+@ConfigSerializable
+class EventBusConfig {
+    @Comment("How many messages can wait for a slow consumer (like an unresponsive OneBot API) before it skips them\nChanges need a proxy restart")
+    var bufferSize = 4096
+    @Comment("The most messages a consumer takes at once\nChanges need a proxy restart")
+    var maxBatch = 128
+    @Comment("Write every chat, join, leave, change, broadcast and QQ message to chat.log in the plugin folder")
+    var chatLog = false
+}
+
+@ConfigSerializable
+class LoadSheddingConfig {
+    @Comment("Level 1 - join, leave and change messages are not shown in game\nLevel 2 - they are not forwarded to QQ either\nLevel 3 - QQ messages are not shown in game either\nEvery change of level is logged, /vmessage stats shows the current one")
+    var enabled = true
+    @Comment("How full the fullest chat lane must be (percent of chat-pipeline.queue-size) for levels 1, 2 and 3\nSet a level to 0 to not reach it this way")
+    var queueDepth: List<Int> = listOf(25, 50, 75)
+    @Comment("How long (in milliseconds) chat messages took on average in the last second for levels 1, 2 and 3,\nfrom being sent until the last player got them\nSet a level to 0 to not reach it this way")
+    var latency: List<Int> = listOf(100, 250, 500)
+    @Comment("How many seconds the load must stay under the current level before going down one level")
+    var recoverAfter = 10
+}
+
+enum class MuteLookupFailurePolicy {
+    ALLOW,
+    BLOCK
+}
+
+@ConfigSerializable
+class MiniMessageGuardConfig {
+    var enabled = true
+    @Comment("Maximum message length in characters (0 for no limit)")
+    var maxLength = 512
+    @Comment("Maximum number of tags in one message (0 for no limit)")
+    var maxTags = 32
+    @Comment("Maximum number of tags open inside each other (0 for no limit)")
+    var maxDepth = 8
+    @Comment("Tags players can only use with the permission 'vmessage.minimessage.<tag>'")
+    var bannedTags: List<String> = listOf("click", "hover", "insert", "insertion", "sel", "selector", "nbt", "data", "score")
+    @Comment("What to do with a message over the limits\nESCAPE - send it with the tags shown as text\nREJECT - do not send it and tell the player why")
+    var action = MiniMessageGuardAction.ESCAPE
+    @Comment("The message to send when a message is rejected\n%reason% - Why the message was rejected")
+    var rejectedMessage = "<red>Your message was not sent: %reason%"
+}
+
+enum class MiniMessageGuardAction {
+    ESCAPE,
+    REJECT
+}
+
 /* OneBot Config */
 @ConfigSerializable
 class OneBotConfig {
@@ -190,6 +413,10 @@ class OneBotFormatToQQConfig {
     var leave = "[游戏] %player% 离开了服务器"
     var change = "[游戏] %player% 从 %old_server% 切换到 %new_server%"
     var broadcast = "[广播] %message%"
+    @Comment("Sent instead when many players join, leave or switch at once, see messages.coalescing\n%count% - Number of players")
+    var joinSummary = "[游戏] %count% 名玩家加入了服务器"
+    var leaveSummary = "[游戏] %count% 名玩家离开了服务器"
+    var changeSummary = "[游戏] %count% 名玩家从 %old_server% 切换到 %new_server%"
 }
 
 @ConfigSerializable
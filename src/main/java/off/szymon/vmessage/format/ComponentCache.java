@@ -0,0 +1,90 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.format;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size bounded LRU cache of deserialized MiniMessage strings.
+ * <p>
+ * Join, leave, change and muted messages render to the same final string over and over, so parsing them
+ * once is enough. A new cache comes with every compiled {@link off.szymon.vmessage.config.RuntimeConfig},
+ * which drops everything cached with the previous config on reload.
+ */
+public final class ComponentCache {
+
+    // Longer strings are rarely repeated and would only push useful entries out
+    private static final int MAX_KEY_LENGTH = 1024;
+
+    private final int maxSize;
+    private final Map<String, Component> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ComponentCache(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Component> eldest) {
+                return size() > ComponentCache.this.maxSize;
+            }
+        };
+    }
+
+    public Component deserialize(String miniMessage) {
+        if (maxSize == 0 || miniMessage.length() > MAX_KEY_LENGTH) {
+            misses.increment();
+            return MiniMessage.miniMessage().deserialize(miniMessage);
+        }
+
+        Component component;
+        synchronized (entries) {
+            component = entries.get(miniMessage);
+        }
+        if (component != null) {
+            hits.increment();
+            return component;
+        }
+
+        misses.increment();
+        // Parsed outside the lock, two threads missing on the same key at once both parse it which is harmless
+        component = MiniMessage.miniMessage().deserialize(miniMessage);
+        synchronized (entries) {
+            entries.put(miniMessage, component);
+        }
+        return component;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.format;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts player input with legacy {@code &} codes into MiniMessage without building a component tree.
+ * <p>
+ * The output is the same as deserializing with {@code LegacyComponentSerializer.legacyAmpersand()}, serializing
+ * the result with MiniMessage and, when MiniMessage is not allowed, escaping the tags of that ({@code LegacyTranscoderTest}).
+ * Codes are located right to left exactly like the legacy serializer does (which decides how malformed {@code &x}
+ * sequences are read), then the output is written in a single forward pass:
+ * <ul>
+ *     <li>a run of codes containing a color or {@code &r} starts a new group, closing every tag opened before it</li>
+ *     <li>a run of only decoration codes nests inside the current group</li>
+ *     <li>decorations are opened before the color, in a fixed order, and trailing tags are never closed</li>
+ *     <li>{@code &x&r&r&g&g&b&b} and {@code &#rrggbb} hex colors are written as the named color if one matches</li>
+ *     <li>text is escaped like the serializer escapes it, so tags typed next to {@code &} codes are never kept</li>
+ *     <li>when MiniMessage is not allowed the tags are written escaped as well, so they show as text</li>
+ * </ul>
+ * Without legacy codes, MiniMessage that is not allowed is escaped the same way as text.
+ */
+public final class LegacyTranscoder {
+
+    // Decoration bits, in the order MiniMessage writes them
+    private static final int ITALIC = 1;
+    private static final int UNDERLINED = 1 << 1;
+    private static final int STRIKETHROUGH = 1 << 2;
+    private static final int BOLD = 1 << 3;
+    private static final int OBFUSCATED = 1 << 4;
+    private static final String[] DECORATION_TAGS = {"italic", "underlined", "strikethrough", "bold", "obfuscated"};
+
+    private static final String[] COLOR_NAMES = {
+            "black", "dark_blue", "dark_green", "dark_aqua", "dark_red", "dark_purple", "gold", "gray",
+            "dark_gray", "blue", "green", "aqua", "red", "light_purple", "yellow", "white"
+    };
+    private static final int[] COLOR_VALUES = {
+            0x000000, 0x0000AA, 0x00AA00, 0x00AAAA, 0xAA0000, 0xAA00AA, 0xFFAA00, 0xAAAAAA,
+            0x555555, 0x5555FF, 0x55FF55, 0x55FFFF, 0xFF5555, 0xFF55FF, 0xFFFF55, 0xFFFFFF
+    };
+
+    private LegacyTranscoder() {}
+
+    /**
+     * @param allowLegacyColorCodes whether {@code &} codes are converted into tags
+     * @param allowMiniMessage      whether tags are kept, otherwise everything is escaped (the tags from
+     *                              {@code &} codes included, so they show as text)
+     */
+    public static String transcode(String input, boolean allowLegacyColorCodes, boolean allowMiniMessage) {
+        if (input == null) return "";
+        if (!needsWork(input)) return input;
+
+        if (!allowLegacyColorCodes) {
+            return allowMiniMessage ? input : escape(input);
+        }
+        return new State(input.length(), !allowMiniMessage).run(input);
+    }
+
+    /**
+     * Escapes every {@code <} and {@code \}, the way MiniMessage serializes text
+     */
+    private static String escape(String input) {
+        StringBuilder out = new StringBuilder(input.length() + 8);
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '<' || c == '\\') out.append('\\');
+            out.append(c);
+        }
+        return out.toString();
+    }
+
+    private static boolean needsWork(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '&' || c == '<' || c == '\\') return true;
+        }
+        return false;
+    }
+
+    // Marks for the code table, the low 24 bits hold the color
+    private static final int KYORI_HEX = 1 << 24;
+    private static final int BUNGEE_HEX = 1 << 25;
+    private static final String LEGACY_CHARS = "0123456789abcdefklmnorABCDEFKLMNOR";
+
+    /**
+     * Finds every code the legacy serializer would read. The returned table is indexed by the position of the
+     * {@code &} the code starts at and holds either the code character or a hex mark with the color, 0 elsewhere.
+     */
+    private static int[] locateCodes(String input) {
+        int length = input.length();
+        int[] codes = new int[length];
+        int at = input.lastIndexOf('&', length - 2);
+        while (at != -1) {
+            char code = input.charAt(at + 1);
+            if (at >= 12 && input.charAt(at - 12) == '&' && input.charAt(at - 11) == 'x') {
+                // The last pair of &x&r&r&g&g&b&b, the digits are every other character ending right after this &
+                int rgb = parseHex(input, at - 9, 2);
+                if (rgb != -1) {
+                    at -= 12;
+                    codes[at] = BUNGEE_HEX | rgb;
+                }
+            } else if (code == '#' && length - at - 2 >= 6) {
+                int rgb = parseHex(input, at + 2, 1);
+                if (rgb != -1) codes[at] = KYORI_HEX | rgb;
+            } else if (LEGACY_CHARS.indexOf(code) != -1) {
+                codes[at] = code;
+            }
+            at = input.lastIndexOf('&', at - 1);
+        }
+        return codes;
+    }
+
+    /**
+     * Reads six characters as a hex color the way {@link Integer#parseInt(String, int)} does, signs included
+     *
+     * @return the color, or -1 if the characters are not a number
+     */
+    private static int parseHex(String input, int from, int stride) {
+        char[] digits = new char[6];
+        for (int n = 0; n < 6; n++) {
+            digits[n] = input.charAt(from + n * stride);
+        }
+        try {
+            return Integer.parseInt(new String(digits), 16) & 0xFFFFFF;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static final class State {
+        private final StringBuilder out;
+        // Write the tags escaped, like escapeTags would
+        private final boolean escapeTags;
+        // Tags opened in the current group, innermost last
+        private final List<String> openTags = new ArrayList<>();
+
+        // Codes read since the last piece of text
+        private boolean inRun;
+        private boolean runClears; // Contains a color or a reset
+        private String runColor;
+        private int runDecorations;
+
+        private State(int length, boolean escapeTags) {
+            this.out = new StringBuilder(length + 16);
+            this.escapeTags = escapeTags;
+        }
+
+        private String run(String input) {
+            int[] codes = input.indexOf('&') == -1 ? null : locateCodes(input);
+            int length = input.length();
+            int i = 0;
+            while (i < length) {
+                if (codes != null && codes[i] != 0) {
+                    i += applyCode(codes[i]);
+                    continue;
+                }
+                char c = input.charAt(i);
+                flushRun(false);
+                if (c == '<' || c == '\\') {
+                    out.append('\\');
+                }
+                out.append(c);
+                i++;
+            }
+            flushRun(true);
+            return out.toString();
+        }
+
+        /**
+         * @return the number of characters the code spans
+         */
+        private int applyCode(int code) {
+            if ((code & BUNGEE_HEX) != 0) {
+                clear(colorName(code & 0xFFFFFF));
+                return 14;
+            }
+            if ((code & KYORI_HEX) != 0) {
+                clear(colorName(code & 0xFFFFFF));
+                return 8;
+            }
+            char legacy = Character.toLowerCase((char) code);
+            int color = Character.digit(legacy, 16);
+            if (color != -1) {
+                clear(COLOR_NAMES[color]);
+                return 2;
+            }
+            switch (legacy) {
+                case 'k' -> decorate(OBFUSCATED);
+                case 'l' -> decorate(BOLD);
+                case 'm' -> decorate(STRIKETHROUGH);
+                case 'n' -> decorate(UNDERLINED);
+                case 'o' -> decorate(ITALIC);
+                default -> clear(null); // &r
+            }
+            return 2;
+        }
+
+        private static String colorName(int rgb) {
+            for (int n = 0; n < COLOR_VALUES.length; n++) {
+                if (COLOR_VALUES[n] == rgb) return COLOR_NAMES[n];
+            }
+            return String.format("#%06x", rgb);
+        }
+
+        private void clear(String color) {
+            inRun = true;
+            runClears = true;
+            runColor = color;
+            runDecorations = 0;
+        }
+
+        private void decorate(int decoration) {
+            inRun = true;
+            runDecorations |= decoration;
+        }
+
+        private void flushRun(boolean atEnd) {
+            if (!inRun) return;
+            inRun = false;
+
+            if (runClears) {
+                // An empty unstyled group at the very end is dropped entirely, including the closing tags before it
+                if (atEnd && runColor == null && runDecorations == 0) return;
+                for (int n = openTags.size() - 1; n >= 0; n--) {
+                    if (escapeTags) out.append('\\');
+                    out.append("</").append(openTags.get(n)).append('>');
+                }
+                openTags.clear();
+            }
+            for (int n = 0; n < DECORATION_TAGS.length; n++) {
+                if ((runDecorations & (1 << n)) != 0) openTag(DECORATION_TAGS[n]);
+            }
+            if (runClears && runColor != null) openTag(runColor);
+
+            runClears = false;
+            runColor = null;
+            runDecorations = 0;
+        }
+
+        private void openTag(String tag) {
+            if (escapeTags) out.append('\\');
+            out.append('<').append(tag).append('>');
+            openTags.add(tag);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.format;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Cheap pre-scan of MiniMessage typed by players, run before the input ever reaches the parser.
+ * <p>
+ * The scan only looks at the shape of the tags (how many, how deeply nested, which names), it does not validate
+ * arguments. Quoted arguments can hold MiniMessage of their own, so they are scanned the same way, as nested in their
+ * tag. It errs on the side of counting: anything that looks like a closed tag is counted, even if MiniMessage would end
+ * up treating it as text.
+ */
+public final class MiniMessageGuard {
+
+    public enum Action {
+        /** Send the message with the player's tags shown as text */
+        ESCAPE,
+        /** Do not send the message at all */
+        REJECT
+    }
+
+    // Tags that never wrap anything, they don't add to the nesting depth
+    private static final Set<String> VOID_TAGS = Set.of(
+            "newline", "br", "reset", "key", "keybind", "lang", "tr", "translate", "lang_or", "tr_or", "translate_or",
+            "sel", "selector", "score", "nbt", "data"
+    );
+
+    // How many quoted arguments can be inside each other, e.g. a hover inside a hover
+    private static final int MAX_ARGUMENT_NESTING = 4;
+
+    private final boolean enabled;
+    private final int maxLength;
+    private final int maxTags;
+    private final int maxDepth;
+    private final Set<String> bannedTags;
+    private final Action action;
+
+    public MiniMessageGuard(boolean enabled, int maxLength, int maxTags, int maxDepth, Set<String> bannedTags, Action action) {
+        this.enabled = enabled;
+        this.maxLength = maxLength;
+        this.maxTags = maxTags;
+        this.maxDepth = maxDepth;
+        this.bannedTags = Set.copyOf(bannedTags);
+        this.action = action;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    /**
+     * @param tagPermitted tells whether the player may use a banned tag anyway, called with the lowercase tag name
+     * @return why the input is over the limits, or null if it can be parsed
+     */
+    public @Nullable String check(String input, Predicate<String> tagPermitted) {
+        if (!enabled) return null;
+        if (maxLength > 0 && input.length() > maxLength) {
+            return "message is longer than " + maxLength + " characters";
+        }
+        return new Scan(tagPermitted).scan(input, 0, 0);
+    }
+
+    /**
+     * One check, the tag count is shared by the input and every quoted argument in it
+     */
+    private final class Scan {
+
+        private final Predicate<String> tagPermitted;
+        private int tags;
+
+        private Scan(Predicate<String> tagPermitted) {
+            this.tagPermitted = tagPermitted;
+        }
+
+        /**
+         * @param baseDepth how deep the input is nested already, its closing tags never go above it
+         * @param level     how many quoted arguments the input is inside of
+         */
+        private @Nullable String scan(String input, int baseDepth, int level) {
+            int length = input.length();
+            int depth = baseDepth;
+            int i = 0;
+            while (i < length) {
+                char c = input.charAt(i);
+                if (c == '\\') {
+                    i += 2; // Escaped character, never a tag
+                    continue;
+                }
+                if (c != '<') {
+                    i++;
+                    continue;
+                }
+
+                int end = findTagEnd(input, i + 1);
+                if (end == length) break; // No more closed tags
+                if (input.charAt(end) == '<') {
+                    i = end; // What looked like a tag is text, start again from the next one
+                    continue;
+                }
+                int nameStart = i + 1;
+                boolean closing = nameStart < end && input.charAt(nameStart) == '/';
+                if (closing || (nameStart < end && input.charAt(nameStart) == '!')) nameStart++;
+                int nameEnd = nameStart;
+                while (nameEnd < end && isNameChar(input.charAt(nameEnd))) nameEnd++;
+                if (nameEnd == nameStart || (nameEnd < end && input.charAt(nameEnd) != ':' && input.charAt(nameEnd) != '/')) {
+                    // Not a tag, e.g. "<3" or "a < b > c"
+                    i++;
+                    continue;
+                }
+
+                if (closing) {
+                    if (depth > baseDepth) depth--;
+                } else {
+                    String name = input.substring(nameStart, nameEnd).toLowerCase(Locale.ROOT);
+                    if (maxTags > 0 && ++tags > maxTags) {
+                        return "more than " + maxTags + " tags";
+                    }
+                    if (bannedTags.contains(name) && !tagPermitted.test(name)) {
+                        return "tag <" + name + "> is not allowed";
+                    }
+                    boolean wraps = input.charAt(end - 1) != '/' && !VOID_TAGS.contains(name);
+                    if (wraps && maxDepth > 0 && ++depth > maxDepth) {
+                        return "tags nested deeper than " + maxDepth;
+                    }
+                    // Arguments like <hover:show_text:'...'> and <lang:key:'...'> are parsed as MiniMessage too
+                    String reason = scanArguments(input, nameEnd, end, wraps ? depth : depth + 1, level);
+                    if (reason != null) return reason;
+                }
+                i = end + 1;
+            }
+            return null;
+        }
+
+        /**
+         * Checks the quoted arguments of the tag between {@code from} and {@code to} as if they were nested in it
+         */
+        private @Nullable String scanArguments(String input, int from, int to, int depth, int level) {
+            int i = from;
+            while (i < to) {
+                char quote = input.charAt(i);
+                if (quote != '\'' && quote != '"') {
+                    i++;
+                    continue;
+                }
+                StringBuilder argument = new StringBuilder();
+                int j = i + 1;
+                while (j < to && input.charAt(j) != quote) {
+                    char c = input.charAt(j);
+                    if (c == '\\' && j + 1 < to && (input.charAt(j + 1) == quote || input.charAt(j + 1) == '\\')) {
+                        c = input.charAt(++j);
+                    }
+                    argument.append(c);
+                    j++;
+                }
+                if (argument.indexOf("<") != -1) {
+                    if (level >= MAX_ARGUMENT_NESTING) {
+                        return "tag arguments nested deeper than " + MAX_ARGUMENT_NESTING;
+                    }
+                    String reason = scan(argument.toString(), depth, level + 1);
+                    if (reason != null) return reason;
+                }
+                i = j + 1;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Finds where the tag whose content starts at {@code from} ends, skipping quoted arguments.
+     *
+     * @return the index of the closing {@code >}, of a {@code <} met before it, or the input length if there is none
+     */
+    private static int findTagEnd(String input, int from) {
+        int length = input.length();
+        char quote = 0;
+        for (int i = from; i < length; i++) {
+            char c = input.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') i++;
+                else if (c == quote) quote = 0;
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '>' || c == '<') {
+                return i;
+            }
+        }
+        if (quote == 0) return length;
+        // Unterminated quote, count the tag up to the first > so nothing can hide behind it
+        int end = input.indexOf('>', from);
+        return end == -1 ? length : end;
+    }
+
+    private static boolean isNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '-' || c == '#' || c == '?';
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+
+package off.szymon.vmessage.format;
+
+import org.jetbrains.annotations.Nullable;
+
+@FunctionalInterface
+public interface PlaceholderResolver {
+
+    /**
+     * @param type the placeholder being rendered
+     * @param key  the meta key for {@link PlaceholderType#META} slots, {@code null} otherwise
+     * @return the value to insert, or {@code null} to leave the placeholder token untouched
+     */
+    @Nullable String resolve(PlaceholderType type, @Nullable String key);
+
+}
@@ -0,0 +1,63 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.format;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Typed placeholder slots that a {@link Template} can contain.
+ * <p>
+ * {@link #META} has no fixed token, its slots carry the LuckPerms meta key configured in {@code luck-perms-meta}.
+ * {@link #PROVIDER} slots carry the name of a {@link off.szymon.vmessage.placeholder.PlaceholderProvider}.
+ */
+public enum PlaceholderType {
+    PLAYER("%player%"),
+    MESSAGE("%message%"),
+    SERVER("%server%"),
+    OLD_SERVER("%old_server%"),
+    NEW_SERVER("%new_server%"),
+    PREFIX("%prefix%"),
+    SUFFIX("%suffix%"),
+    REASON("%reason%"),
+    END_DATE("%end-date%"),
+    MODERATOR("%moderator%"),
+    CHANNEL("%channel%"),
+    COUNT("%count%"),
+    META(null),
+    PROVIDER(null);
+
+    private static final Map<String, PlaceholderType> BY_TOKEN = new HashMap<>();
+
+    static {
+        for (PlaceholderType type : values()) {
+            if (type.token != null) {
+                BY_TOKEN.put(type.token, type);
+            }
+        }
+    }
+
+    private final String token;
+
+    PlaceholderType(String token) {
+        this.token = token;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public static PlaceholderType byToken(String token) {
+        return BY_TOKEN.get(token);
+    }
+}
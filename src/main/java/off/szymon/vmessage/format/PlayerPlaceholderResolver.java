@@ -0,0 +1,78 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+
+package off.szymon.vmessage.format;
+
+import com.velocitypowered.api.proxy.Player;
+import off.szymon.vmessage.VMessagePlugin;
+import off.szymon.vmessage.compatibility.LuckPermsCompatibilityProvider;
+import off.szymon.vmessage.session.PlayerSession;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.EnumMap;
+
+/**
+ * Resolves the player related placeholders (name, prefix, suffix, meta) and any extra values set with {@link #with}.
+ * Prefix, suffix and meta are read from the player's {@link PlayerSession}, LuckPerms is only asked directly
+ * for meta keys the session did not resolve ahead of time.
+ * Any other placeholder is looked up in the {@link off.szymon.vmessage.placeholder.PlaceholderRegistry}.
+ */
+public class PlayerPlaceholderResolver implements PlaceholderResolver {
+
+    private final Player player;
+    private final LuckPermsCompatibilityProvider lp;
+    private final EnumMap<PlaceholderType, String> values = new EnumMap<>(PlaceholderType.class);
+    private PlayerSession session;
+
+    public PlayerPlaceholderResolver(Player player, @Nullable LuckPermsCompatibilityProvider lp) {
+        this(player, lp, null);
+    }
+
+    /**
+     * @param session the player's session captured earlier, e.g. before it was dropped on disconnect,
+     *                or null to look it up when first needed
+     */
+    public PlayerPlaceholderResolver(Player player, @Nullable LuckPermsCompatibilityProvider lp, @Nullable PlayerSession session) {
+        this.player = player;
+        this.lp = lp;
+        this.session = session;
+        values.put(PlaceholderType.PLAYER, player.getUsername());
+    }
+
+    public PlayerPlaceholderResolver with(PlaceholderType type, String value) {
+        values.put(type, value);
+        return this;
+    }
+
+    @Override
+    public @Nullable String resolve(PlaceholderType type, @Nullable String key) {
+        switch (type) {
+            case PREFIX:
+            case SUFFIX:
+            case META:
+                // Without LuckPerms these are left as they are
+                if (lp == null) return null;
+                if (session == null) {
+                    session = VMessagePlugin.get().getSessionManager().get(player);
+                }
+                if (type == PlaceholderType.PREFIX) return session.getPrefix();
+                if (type == PlaceholderType.SUFFIX) return session.getSuffix();
+                String value = session.getMetaValue(key);
+                return value != null ? value : VMessagePlugin.get().getSessionManager().getMetaValue(player, key);
+            case PROVIDER:
+                return VMessagePlugin.get().getPlaceholderRegistry().resolve(key, player);
+            default:
+                return values.get(type);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.format;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A message rendered once and shared by every sink (in-game and OneBot).
+ * <p>
+ * The message content is parsed a single time and inserted into the formatted line as a component,
+ * its plain text form for QQ is only computed when something asks for it.
+ */
+public final class RenderedMessage {
+
+    /**
+     * What the {@code %message%} placeholder is rendered as in a line passed to {@link #of(String, String)}
+     */
+    public static final String CONTENT_TAG = "<vm_message>";
+
+    private final Component component;
+    private final @Nullable Component content;
+    private volatile String plainContent;
+
+    private RenderedMessage(Component component, @Nullable Component content) {
+        this.component = component;
+        this.content = content;
+    }
+
+    /**
+     * @param line    the formatted MiniMessage line, with {@link #CONTENT_TAG} where the content goes
+     * @param content the MiniMessage content, or null if the line has none
+     */
+    public static RenderedMessage of(String line, @Nullable String content) {
+        if (content == null) {
+            return new RenderedMessage(MiniMessage.miniMessage().deserialize(line), null);
+        }
+        Component contentComponent = MiniMessage.miniMessage().deserialize(content);
+        Component component = MiniMessage.miniMessage().deserialize(line, Placeholder.component("vm_message", contentComponent));
+        return new RenderedMessage(component, contentComponent);
+    }
+
+    /**
+     * Renders another line around the same, already parsed, content
+     *
+     * @param line a formatted MiniMessage line, with {@link #CONTENT_TAG} where the content goes
+     */
+    public RenderedMessage withLine(String line) {
+        if (content == null) {
+            return new RenderedMessage(MiniMessage.miniMessage().deserialize(line), null);
+        }
+        return new RenderedMessage(MiniMessage.miniMessage().deserialize(line, Placeholder.component("vm_message", content)), content);
+    }
+
+    /**
+     * @return the in-game line
+     */
+    public Component component() {
+        return component;
+    }
+
+    /**
+     * @return the content without any formatting, empty if there is no content
+     */
+    public String plainContent() {
+        String plain = plainContent;
+        if (plain == null) {
+            plain = content == null ? "" : PlainTextComponentSerializer.plainText().serialize(content);
+            plainContent = plain;
+        }
+        return plain;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+
+package off.szymon.vmessage.format;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A message format parsed once into literal segments and placeholder slots.
+ * <p>
+ * Rendering walks the segments a single time and appends into a per-thread buffer,
+ * instead of running one {@link String#replace} pass per placeholder on every message.
+ */
+public final class Template {
+
+    // Buffers that grew past this are dropped instead of being kept around for the thread's lifetime
+    private static final int MAX_RETAINED_BUFFER = 8192;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final String[] literals; // always slots.length + 1 entries
+    private final Slot[] slots;
+
+    private Template(String[] literals, Slot[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+    }
+
+    /**
+     * @param format           the raw format from the config
+     * @param metaPlaceholders placeholder ({@code &name&}) to LuckPerms meta key
+     */
+    public static Template compile(String format, Map<String, String> metaPlaceholders) {
+        return compile(format, metaPlaceholders, null);
+    }
+
+    /**
+     * Compiles a format that only supports some placeholders, e.g. the QQ forward formats.
+     * Any other {@code %placeholder%} is removed here once instead of on every render.
+     *
+     * @param supported the placeholders that get a slot
+     */
+    public static Template compileStrippingUnknown(String format, Set<PlaceholderType> supported) {
+        return compile(format, Map.of(), supported);
+    }
+
+    private static Template compile(String format, Map<String, String> metaPlaceholders, Set<PlaceholderType> supported) {
+        if (format == null) format = "";
+        List<String> literals = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+
+        int i = 0;
+        while (i < format.length()) {
+            char c = format.charAt(i);
+            if (c == '%' || c == '&') {
+                int end = format.indexOf(c, i + 1);
+                if (end != -1) {
+                    String token = format.substring(i, end + 1);
+                    Slot slot = null;
+                    if (c == '%') {
+                        PlaceholderType type = PlaceholderType.byToken(token);
+                        if (supported == null) {
+                            if (type != null) {
+                                slot = new Slot(type, null, token);
+                            } else if (isPlaceholderLike(token)) {
+                                // Looked up in the placeholder registry when rendering, providers can be added at any time
+                                slot = new Slot(PlaceholderType.PROVIDER, token.substring(1, token.length() - 1), token);
+                            }
+                        } else if (type != null && supported.contains(type)) {
+                            slot = new Slot(type, null, token);
+                        } else if (isPlaceholderLike(token)) {
+                            i = end + 1;
+                            continue;
+                        }
+                    } else {
+                        String metaKey = metaPlaceholders.get(token);
+                        if (metaKey != null) slot = new Slot(PlaceholderType.META, metaKey, token);
+                    }
+                    if (slot != null) {
+                        literals.add(literal.toString());
+                        literal.setLength(0);
+                        slots.add(slot);
+                        i = end + 1;
+                        continue;
+                    }
+                }
+            }
+            literal.append(c);
+            i++;
+        }
+        literals.add(literal.toString());
+
+        return new Template(literals.toArray(new String[0]), slots.toArray(new Slot[0]));
+    }
+
+    // Same shape as the %[a-z_]+% pattern the unknown placeholders used to be removed with
+    private static boolean isPlaceholderLike(String token) {
+        if (token.length() < 3) return false;
+        for (int i = 1; i < token.length() - 1; i++) {
+            char c = token.charAt(i);
+            if ((c < 'a' || c > 'z') && c != '_') return false;
+        }
+        return true;
+    }
+
+    public String render(PlaceholderResolver resolver) {
+        if (slots.length == 0) return literals[0];
+
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+        for (int i = 0; i < slots.length; i++) {
+            sb.append(literals[i]);
+            Slot slot = slots[i];
+            String value = resolver.resolve(slot.type(), slot.key());
+            sb.append(value != null ? value : slot.token());
+        }
+        sb.append(literals[slots.length]);
+
+        String result = sb.toString();
+        if (sb.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        }
+        return result;
+    }
+
+    public boolean uses(PlaceholderType type) {
+        for (Slot slot : slots) {
+            if (slot.type() == type) return true;
+        }
+        return false;
+    }
+
+    public boolean isConstant() {
+        return slots.length == 0;
+    }
+
+    private record Slot(PlaceholderType type, String key, String token) {}
+}
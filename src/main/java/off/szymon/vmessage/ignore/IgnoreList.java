@@ -0,0 +1,127 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.ignore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The players and QQ users one player ignores.
+ * <p>
+ * Immutable and stored as sorted primitive arrays (a UUID is two longs), so a lookup is a binary search
+ * without boxing. Changes make a new list, which is fine since they only come from the /ignore command.
+ */
+public final class IgnoreList {
+
+    public static final IgnoreList EMPTY = new IgnoreList(new long[0], new long[0]);
+
+    // Most and least significant bits of each UUID, one after the other, sorted
+    private final long[] players;
+    private final long[] qqIds;
+
+    private IgnoreList(long[] players, long[] qqIds) {
+        this.players = players;
+        this.qqIds = qqIds;
+    }
+
+    public boolean ignoresPlayer(UUID uniqueId) {
+        return indexOf(uniqueId) >= 0;
+    }
+
+    public boolean ignoresQq(long qqId) {
+        return Arrays.binarySearch(qqIds, qqId) >= 0;
+    }
+
+    public boolean isEmpty() {
+        return players.length == 0 && qqIds.length == 0;
+    }
+
+    public List<UUID> getPlayers() {
+        List<UUID> result = new ArrayList<>(players.length / 2);
+        for (int i = 0; i < players.length; i += 2) {
+            result.add(new UUID(players[i], players[i + 1]));
+        }
+        return result;
+    }
+
+    public long[] getQqIds() {
+        return qqIds.clone();
+    }
+
+    public IgnoreList withPlayer(UUID uniqueId) {
+        int index = indexOf(uniqueId);
+        if (index >= 0) return this;
+        int at = (-index - 1) * 2;
+        long[] updated = new long[players.length + 2];
+        System.arraycopy(players, 0, updated, 0, at);
+        updated[at] = uniqueId.getMostSignificantBits();
+        updated[at + 1] = uniqueId.getLeastSignificantBits();
+        System.arraycopy(players, at, updated, at + 2, players.length - at);
+        return new IgnoreList(updated, qqIds);
+    }
+
+    public IgnoreList withoutPlayer(UUID uniqueId) {
+        int index = indexOf(uniqueId);
+        if (index < 0) return this;
+        int at = index * 2;
+        long[] updated = new long[players.length - 2];
+        System.arraycopy(players, 0, updated, 0, at);
+        System.arraycopy(players, at + 2, updated, at, players.length - at - 2);
+        return new IgnoreList(updated, qqIds);
+    }
+
+    public IgnoreList withQq(long qqId) {
+        int index = Arrays.binarySearch(qqIds, qqId);
+        if (index >= 0) return this;
+        int at = -index - 1;
+        long[] updated = new long[qqIds.length + 1];
+        System.arraycopy(qqIds, 0, updated, 0, at);
+        updated[at] = qqId;
+        System.arraycopy(qqIds, at, updated, at + 1, qqIds.length - at);
+        return new IgnoreList(players, updated);
+    }
+
+    public IgnoreList withoutQq(long qqId) {
+        int index = Arrays.binarySearch(qqIds, qqId);
+        if (index < 0) return this;
+        long[] updated = new long[qqIds.length - 1];
+        System.arraycopy(qqIds, 0, updated, 0, index);
+        System.arraycopy(qqIds, index + 1, updated, index, qqIds.length - index - 1);
+        return new IgnoreList(players, updated);
+    }
+
+    /**
+     * @return the pair index of the UUID, or (-(insertion pair index) - 1) like {@link Arrays#binarySearch}
+     */
+    private int indexOf(UUID uniqueId) {
+        long msb = uniqueId.getMostSignificantBits();
+        long lsb = uniqueId.getLeastSignificantBits();
+        int low = 0;
+        int high = players.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = Long.compare(players[mid * 2], msb);
+            if (cmp == 0) cmp = Long.compare(players[mid * 2 + 1], lsb);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+}
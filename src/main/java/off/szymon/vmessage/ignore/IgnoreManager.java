@@ -0,0 +1,206 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.ignore;
+
+import com.velocitypowered.api.event.PostOrder;
+import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.connection.DisconnectEvent;
+import com.velocitypowered.api.event.connection.PostLoginEvent;
+import com.velocitypowered.api.proxy.Player;
+import off.szymon.vmessage.VMessagePlugin;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the ignore lists of online players and which online players ignore whom.
+ * <p>
+ * Lists are loaded when a player logs in and dropped when they disconnect. The reverse index lets the fan-out
+ * ask "who ignores this sender" once per message, instead of checking every recipient's list.
+ */
+public class IgnoreManager {
+
+    private final IgnoreStore store;
+    private final Map<UUID, IgnoreList> lists = new ConcurrentHashMap<>();
+    // Target, online players ignoring them
+    private final Map<UUID, Set<UUID>> playerIgnorers = new ConcurrentHashMap<>();
+    private final Map<Long, Set<UUID>> qqIgnorers = new ConcurrentHashMap<>();
+
+    public IgnoreManager() {
+        store = new IgnoreStore(VMessagePlugin.get().getDataFolder().toPath().resolve("ignores"));
+        // Players that were already online when the plugin loaded
+        for (Player player : VMessagePlugin.get().getServer().getAllPlayers()) {
+            load(player);
+        }
+    }
+
+    public IgnoreList getList(UUID owner) {
+        return lists.getOrDefault(owner, IgnoreList.EMPTY);
+    }
+
+    /**
+     * @return the online players ignoring the player, usually empty
+     */
+    public Set<UUID> getIgnorers(UUID target) {
+        Set<UUID> ignorers = playerIgnorers.get(target);
+        return ignorers != null ? Collections.unmodifiableSet(ignorers) : Set.of();
+    }
+
+    /**
+     * @return the online players ignoring the QQ user, usually empty
+     */
+    public Set<UUID> getQqIgnorers(long qqId) {
+        Set<UUID> ignorers = qqIgnorers.get(qqId);
+        return ignorers != null ? Collections.unmodifiableSet(ignorers) : Set.of();
+    }
+
+    public boolean isIgnoring(UUID owner, UUID target) {
+        return getList(owner).ignoresPlayer(target);
+    }
+
+    /**
+     * {@link #isIgnoring} that also works for offline owners, by reading their list from disk
+     */
+    public boolean isIgnoringStored(UUID owner, UUID target) {
+        IgnoreList list = lists.get(owner);
+        if (list != null) return list.ignoresPlayer(target);
+        try {
+            return store.load(owner).ignoresPlayer(target);
+        } catch (IOException e) {
+            VMessagePlugin.get().getLogger().warn("Failed to load the ignore list of {}: {}", owner, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Ignores the player, or stops ignoring them if they already are
+     *
+     * @return whether the player is ignored now
+     */
+    public synchronized boolean togglePlayer(UUID owner, UUID target) throws IOException {
+        IgnoreList list = loadedList(owner);
+        boolean ignored = !list.ignoresPlayer(target);
+        store.appendPlayer(owner, target, ignored);
+        lists.compute(owner, (uuid, current) -> {
+            IgnoreList base = current != null ? current : IgnoreList.EMPTY;
+            return ignored ? base.withPlayer(target) : base.withoutPlayer(target);
+        });
+        if (ignored) {
+            addIgnorer(playerIgnorers, target, owner);
+        } else {
+            removeIgnorer(playerIgnorers, target, owner);
+        }
+        return ignored;
+    }
+
+    /**
+     * Ignores the QQ user, or stops ignoring them if they already are
+     *
+     * @return whether the QQ user is ignored now
+     */
+    public synchronized boolean toggleQq(UUID owner, long qqId) throws IOException {
+        IgnoreList list = loadedList(owner);
+        boolean ignored = !list.ignoresQq(qqId);
+        store.appendQq(owner, qqId, ignored);
+        lists.compute(owner, (uuid, current) -> {
+            IgnoreList base = current != null ? current : IgnoreList.EMPTY;
+            return ignored ? base.withQq(qqId) : base.withoutQq(qqId);
+        });
+        if (ignored) {
+            addIgnorer(qqIgnorers, qqId, owner);
+        } else {
+            removeIgnorer(qqIgnorers, qqId, owner);
+        }
+        return ignored;
+    }
+
+    /**
+     * The owner's list, read from disk first if the login did not load it yet, so a change is never made to an
+     * empty list and then overwritten by the load
+     */
+    private IgnoreList loadedList(UUID owner) throws IOException {
+        IgnoreList list = lists.get(owner);
+        if (list != null) return list;
+        list = store.load(owner);
+        index(owner, list);
+        return list;
+    }
+
+    // Synchronized with the toggles, a change is either already in the file or made after the list was loaded
+    private synchronized void load(Player player) {
+        UUID owner = player.getUniqueId();
+        // Already loaded by a change made right after logging in
+        if (lists.containsKey(owner)) return;
+        IgnoreList list;
+        try {
+            list = store.load(owner);
+        } catch (IOException e) {
+            VMessagePlugin.get().getLogger().warn("Failed to load the ignore list of {}: {}", player.getUsername(), e.getMessage());
+            return;
+        }
+        if (list.isEmpty()) return;
+        index(owner, list);
+        // A player that already left must not stay in the index
+        if (!player.isActive()) unload(owner);
+    }
+
+    private void index(UUID owner, IgnoreList list) {
+        lists.put(owner, list);
+        for (UUID target : list.getPlayers()) {
+            addIgnorer(playerIgnorers, target, owner);
+        }
+        for (long qqId : list.getQqIds()) {
+            addIgnorer(qqIgnorers, qqId, owner);
+        }
+    }
+
+    private synchronized void unload(UUID owner) {
+        IgnoreList list = lists.remove(owner);
+        if (list == null) return;
+        for (UUID target : list.getPlayers()) {
+            removeIgnorer(playerIgnorers, target, owner);
+        }
+        for (long qqId : list.getQqIds()) {
+            removeIgnorer(qqIgnorers, qqId, owner);
+        }
+    }
+
+    private static <K> void addIgnorer(Map<K, Set<UUID>> index, K target, UUID owner) {
+        index.compute(target, (key, ignorers) -> {
+            if (ignorers == null) ignorers = ConcurrentHashMap.newKeySet();
+            ignorers.add(owner);
+            return ignorers;
+        });
+    }
+
+    private static <K> void removeIgnorer(Map<K, Set<UUID>> index, K target, UUID owner) {
+        index.computeIfPresent(target, (key, ignorers) -> {
+            ignorers.remove(owner);
+            return ignorers.isEmpty() ? null : ignorers;
+        });
+    }
+
+    @Subscribe(order = PostOrder.FIRST)
+    public void onLogin(PostLoginEvent e) {
+        VMessagePlugin.get().getAsyncExecutor().execute(() -> load(e.getPlayer()));
+    }
+
+    @Subscribe(order = PostOrder.LAST)
+    public void onDisconnect(DisconnectEvent e) {
+        unload(e.getPlayer().getUniqueId());
+    }
+}
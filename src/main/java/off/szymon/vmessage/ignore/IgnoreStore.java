@@ -0,0 +1,106 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.ignore;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Stores ignore lists in {@code ignores/<uuid>.log} in the plugin data folder, one file per player.
+ * <p>
+ * Every change is appended as one line ({@code +p <uuid>}, {@code -p <uuid>}, {@code +q <qq id>}, {@code -q <qq id>})
+ * and the list is rebuilt by replaying the file on login. A file with many more lines than entries is rewritten
+ * with only the current entries when it is loaded.
+ */
+public class IgnoreStore {
+
+    private static final int COMPACT_MIN_LINES = 32;
+
+    private final Path folder;
+
+    public IgnoreStore(Path folder) {
+        this.folder = folder;
+    }
+
+    public synchronized IgnoreList load(UUID owner) throws IOException {
+        Path file = file(owner);
+        if (!Files.exists(file)) return IgnoreList.EMPTY;
+
+        IgnoreList list = IgnoreList.EMPTY;
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (String line : lines) {
+            list = apply(list, line);
+        }
+
+        int entries = list.getPlayers().size() + list.getQqIds().length;
+        if (lines.size() >= COMPACT_MIN_LINES && lines.size() > entries * 2) {
+            compact(owner, list);
+        }
+        return list;
+    }
+
+    public synchronized void appendPlayer(UUID owner, UUID target, boolean ignored) throws IOException {
+        append(owner, (ignored ? "+p " : "-p ") + target);
+    }
+
+    public synchronized void appendQq(UUID owner, long qqId, boolean ignored) throws IOException {
+        append(owner, (ignored ? "+q " : "-q ") + qqId);
+    }
+
+    private void append(UUID owner, String line) throws IOException {
+        Files.createDirectories(folder);
+        Files.writeString(file(owner), line + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+    }
+
+    private synchronized void compact(UUID owner, IgnoreList list) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (UUID target : list.getPlayers()) {
+            lines.add("+p " + target);
+        }
+        for (long qqId : list.getQqIds()) {
+            lines.add("+q " + qqId);
+        }
+        Path temp = folder.resolve(owner + ".log.tmp");
+        Files.write(temp, lines, StandardCharsets.UTF_8);
+        Files.move(temp, file(owner), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static IgnoreList apply(IgnoreList list, String line) {
+        if (line.length() < 4) return list;
+        String value = line.substring(3).trim();
+        try {
+            return switch (line.substring(0, 2)) {
+                case "+p" -> list.withPlayer(UUID.fromString(value));
+                case "-p" -> list.withoutPlayer(UUID.fromString(value));
+                case "+q" -> list.withQq(Long.parseLong(value));
+                case "-q" -> list.withoutQq(Long.parseLong(value));
+                default -> list;
+            };
+        } catch (IllegalArgumentException e) {
+            // A line cut short by a crash, skip it
+            return list;
+        }
+    }
+
+    private Path file(UUID owner) {
+        return folder.resolve(owner + ".log");
+    }
+}
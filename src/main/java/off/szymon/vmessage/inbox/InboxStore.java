@@ -0,0 +1,416 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.inbox;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Private messages waiting for offline players, stored in append-only segment files ({@code segment-<n>.dat}).
+ * <p>
+ * A message is appended to the newest segment, which is sealed once it reaches {@link #SEGMENT_SIZE}.
+ * Delivering a player's messages appends a marker that drops all of their earlier messages. An in-memory index
+ * (rebuilt by reading the segments once on startup) maps each recipient to the offsets of their messages,
+ * so delivery reads only those records, in file order.
+ * <p>
+ * Old segments without undelivered messages are deleted, and once most of the stored bytes are delivered
+ * messages, the undelivered ones are rewritten into new segments and the old ones removed. The new segments are
+ * written under a temporary name ({@code segment-<n>.dat.compacting}) and only replace the old ones once the
+ * {@code compaction} marker was moved into place, so a crash in between never leaves both copies to be replayed.
+ */
+public class InboxStore {
+
+    static final int SEGMENT_SIZE = 1024 * 1024;
+
+    private static final byte MESSAGE = 1;
+    private static final byte DELIVERED = 2;
+    static final String COMPACTING = ".compacting";
+    static final String COMPACTION_MARKER = "compaction";
+
+    private final Path folder;
+    // Segment number, live message count, in segment order
+    private final TreeMap<Long, Integer> segments = new TreeMap<>();
+    private final Map<UUID, List<Pointer>> index = new HashMap<>();
+    private long activeSegment;
+    private long activeSize;
+    private long totalBytes;
+    private long liveBytes;
+
+    public InboxStore(Path folder) throws IOException {
+        this.folder = folder;
+        Files.createDirectories(folder);
+        Path marker = folder.resolve(COMPACTION_MARKER);
+        if (Files.exists(marker)) {
+            // Stopped after a compaction was committed, the compacted segments replace the old ones
+            long firstSegment;
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(marker))) {
+                firstSegment = in.readLong();
+            }
+            finishCompaction(firstSegment);
+        } else {
+            // Stopped before a compaction was committed, the old segments are still the current ones
+            try (Stream<Path> files = Files.list(folder)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    if (file.getFileName().toString().endsWith(COMPACTING)) Files.delete(file);
+                }
+            }
+            Files.deleteIfExists(folder.resolve(COMPACTION_MARKER + ".tmp"));
+        }
+        try (Stream<Path> files = Files.list(folder)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.startsWith("segment-") && name.endsWith(".dat")) {
+                    segments.put(Long.parseLong(name.substring(8, name.length() - 4)), 0);
+                }
+            }
+        }
+        long validSize = 0;
+        for (long segment : new ArrayList<>(segments.keySet())) {
+            validSize = replay(segment);
+        }
+        activeSegment = segments.isEmpty() ? 0 : segments.lastKey();
+        activeSize = validSize;
+        segments.putIfAbsent(activeSegment, 0);
+        Path active = segmentFile(activeSegment);
+        if (Files.exists(active) && Files.size(active) > validSize) {
+            // Drop a record cut short by a crash, new records must not be appended after it
+            try (FileChannel channel = FileChannel.open(active, StandardOpenOption.WRITE)) {
+                channel.truncate(validSize);
+            }
+        }
+    }
+
+    public synchronized int count(UUID recipient) {
+        List<Pointer> pointers = index.get(recipient);
+        return pointers != null ? pointers.size() : 0;
+    }
+
+    public synchronized int getRecipientCount() {
+        return index.size();
+    }
+
+    /**
+     * @param maxMessages how many messages the recipient can have waiting, 0 for no limit
+     * @return false if the recipient already has {@code maxMessages} messages waiting
+     */
+    public synchronized boolean append(UUID recipient, long time, String message, int maxMessages) throws IOException {
+        if (maxMessages > 0 && count(recipient) >= maxMessages) return false;
+        Pointer pointer = write(messageRecord(recipient, time, message));
+        index.computeIfAbsent(recipient, uuid -> new ArrayList<>()).add(pointer);
+        segments.merge(pointer.segment(), 1, Integer::sum);
+        liveBytes += pointer.length();
+        return true;
+    }
+
+    /**
+     * Reads and removes all messages waiting for the recipient. Space is only given back by {@link #cleanUp()},
+     * so a failure there can never lose messages that are already marked as delivered.
+     *
+     * @return the messages, oldest first
+     */
+    public synchronized List<String> take(UUID recipient) throws IOException {
+        List<Pointer> pointers = index.get(recipient);
+        if (pointers == null) return List.of();
+
+        List<String> messages = new ArrayList<>(pointers.size());
+        FileChannel channel = null;
+        long channelSegment = -1;
+        try {
+            // The pointers are in file order, so this reads each segment front to back
+            for (Pointer pointer : pointers) {
+                if (channel == null || channelSegment != pointer.segment()) {
+                    if (channel != null) channel.close();
+                    channel = FileChannel.open(segmentFile(pointer.segment()), StandardOpenOption.READ);
+                    channelSegment = pointer.segment();
+                }
+                messages.add(read(channel, pointer).text());
+            }
+        } finally {
+            if (channel != null) channel.close();
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(17);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(DELIVERED);
+        out.writeLong(recipient.getMostSignificantBits());
+        out.writeLong(recipient.getLeastSignificantBits());
+        write(bytes.toByteArray());
+
+        index.remove(recipient);
+        for (Pointer pointer : pointers) {
+            segments.merge(pointer.segment(), -1, Integer::sum);
+            liveBytes -= pointer.length();
+        }
+        return messages;
+    }
+
+    /**
+     * Deletes segments without undelivered messages, and compacts the store once most of it is delivered messages
+     */
+    public synchronized void cleanUp() throws IOException {
+        deleteDeadSegments();
+        if (totalBytes > SEGMENT_SIZE && liveBytes * 2 < totalBytes) compact();
+    }
+
+    private static byte[] messageRecord(UUID recipient, long time, String message) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + message.length());
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(MESSAGE);
+        out.writeLong(recipient.getMostSignificantBits());
+        out.writeLong(recipient.getLeastSignificantBits());
+        out.writeLong(time);
+        out.writeUTF(message);
+        return bytes.toByteArray();
+    }
+
+    private Pointer write(byte[] record) throws IOException {
+        if (activeSize > 0 && activeSize + record.length > SEGMENT_SIZE) {
+            activeSegment++;
+            activeSize = 0;
+            segments.put(activeSegment, 0);
+        }
+        Path file = segmentFile(activeSegment);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Pointer pointer = new Pointer(activeSegment, activeSize, record.length);
+        activeSize += record.length;
+        totalBytes += record.length;
+        return pointer;
+    }
+
+    /**
+     * @return the size of the segment up to the last complete record
+     */
+    private long replay(long segment) throws IOException {
+        Path file = segmentFile(segment);
+        long size = Files.size(file);
+        long offset = 0;
+        try (InputStream stream = Files.newInputStream(file);
+             CountingInputStream counting = new CountingInputStream(stream);
+             DataInputStream in = new DataInputStream(counting)) {
+            while (offset < size) {
+                UUID recipient;
+                byte type;
+                try {
+                    type = in.readByte();
+                    recipient = new UUID(in.readLong(), in.readLong());
+                    if (type == MESSAGE) readMessageBody(in);
+                } catch (EOFException e) {
+                    break; // A record cut short by a crash
+                }
+                int length = (int) (counting.count - offset);
+                if (type == MESSAGE) {
+                    index.computeIfAbsent(recipient, uuid -> new ArrayList<>()).add(new Pointer(segment, offset, length));
+                    segments.merge(segment, 1, Integer::sum);
+                    liveBytes += length;
+                } else if (type == DELIVERED) {
+                    List<Pointer> delivered = index.remove(recipient);
+                    if (delivered != null) {
+                        for (Pointer pointer : delivered) {
+                            segments.merge(pointer.segment(), -1, Integer::sum);
+                            liveBytes -= pointer.length();
+                        }
+                    }
+                } else {
+                    break;
+                }
+                offset = counting.count;
+            }
+        }
+        totalBytes += offset;
+        return offset;
+    }
+
+    /**
+     * Deletes segments from the oldest one on while they hold no undelivered messages. Only the oldest can go,
+     * since a delivered marker in a segment still hides messages in the segments before it.
+     */
+    private void deleteDeadSegments() throws IOException {
+        while (segments.size() > 1) {
+            Map.Entry<Long, Integer> oldest = segments.firstEntry();
+            if (oldest.getValue() > 0) return;
+            Path file = segmentFile(oldest.getKey());
+            totalBytes -= Files.exists(file) ? Files.size(file) : 0;
+            Files.deleteIfExists(file);
+            segments.remove(oldest.getKey());
+        }
+    }
+
+    /**
+     * Rewrites the undelivered messages into new segments, so the delivered ones stop taking space
+     */
+    private void compact() throws IOException {
+        List<Long> oldSegments = new ArrayList<>(segments.keySet());
+        Map<UUID, List<Pointer>> oldIndex = new HashMap<>(index);
+        List<Map.Entry<UUID, Message>> live = new ArrayList<>();
+        for (Map.Entry<UUID, List<Pointer>> entry : oldIndex.entrySet()) {
+            for (Pointer pointer : entry.getValue()) {
+                try (FileChannel channel = FileChannel.open(segmentFile(pointer.segment()), StandardOpenOption.READ)) {
+                    live.add(Map.entry(entry.getKey(), read(channel, pointer)));
+                }
+            }
+        }
+        live.sort((a, b) -> Long.compare(a.getValue().time(), b.getValue().time()));
+
+        long firstSegment = oldSegments.get(oldSegments.size() - 1) + 1;
+        Map<UUID, List<Pointer>> newIndex = new HashMap<>();
+        TreeMap<Long, Integer> newSegments = new TreeMap<>();
+        long segment = firstSegment;
+        newSegments.put(segment, 0);
+        ByteArrayOutputStream segmentBytes = new ByteArrayOutputStream();
+        long written = 0;
+        for (Map.Entry<UUID, Message> entry : live) {
+            byte[] record = messageRecord(entry.getKey(), entry.getValue().time(), entry.getValue().text());
+            if (segmentBytes.size() > 0 && segmentBytes.size() + record.length > SEGMENT_SIZE) {
+                writeSynced(compactingFile(segment), segmentBytes.toByteArray());
+                segmentBytes.reset();
+                segment++;
+                newSegments.put(segment, 0);
+            }
+            newIndex.computeIfAbsent(entry.getKey(), uuid -> new ArrayList<>()).add(new Pointer(segment, segmentBytes.size(), record.length));
+            newSegments.merge(segment, 1, Integer::sum);
+            segmentBytes.write(record);
+            written += record.length;
+        }
+        writeSynced(compactingFile(segment), segmentBytes.toByteArray());
+
+        // The commit point, from here on a restart finishes the compaction instead of replaying the old segments
+        ByteArrayOutputStream markerBytes = new ByteArrayOutputStream(8);
+        new DataOutputStream(markerBytes).writeLong(firstSegment);
+        Path markerTmp = folder.resolve(COMPACTION_MARKER + ".tmp");
+        writeSynced(markerTmp, markerBytes.toByteArray());
+        Files.move(markerTmp, folder.resolve(COMPACTION_MARKER), StandardCopyOption.ATOMIC_MOVE);
+
+        index.clear();
+        index.putAll(newIndex);
+        segments.clear();
+        segments.putAll(newSegments);
+        activeSegment = segment;
+        activeSize = segmentBytes.size();
+        totalBytes = written;
+        liveBytes = written;
+        // If this fails, the next startup finishes it
+        finishCompaction(firstSegment);
+    }
+
+    /**
+     * Moves the compacted segments into place and deletes the ones they replace, then the marker.
+     * Safe to run again if it was cut short.
+     */
+    private void finishCompaction(long firstSegment) throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(folder)) {
+            files = list.filter(file -> file.getFileName().toString().startsWith("segment-")).toList();
+        }
+        // All compacted segments are in place before any old one goes
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(".dat" + COMPACTING)) {
+                long segment = Long.parseLong(name.substring(8, name.length() - 4 - COMPACTING.length()));
+                Files.move(file, segmentFile(segment), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(".dat") && Long.parseLong(name.substring(8, name.length() - 4)) < firstSegment) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(folder.resolve(COMPACTION_MARKER));
+    }
+
+    private static void writeSynced(Path file, byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    private static Message read(FileChannel channel, Pointer pointer) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(pointer.length());
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, pointer.offset() + buffer.position()) < 0) throw new EOFException();
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.array()));
+        in.skipBytes(1 + 16); // Type, recipient
+        return readMessageBody(in);
+    }
+
+    private static Message readMessageBody(DataInputStream in) throws IOException {
+        long time = in.readLong();
+        String text = in.readUTF();
+        return new Message(time, text);
+    }
+
+    private Path segmentFile(long segment) {
+        return folder.resolve("segment-" + segment + ".dat");
+    }
+
+    private Path compactingFile(long segment) {
+        return folder.resolve("segment-" + segment + ".dat" + COMPACTING);
+    }
+
+    private record Pointer(long segment, long offset, int length) {}
+
+    private record Message(long time, String text) {}
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(new BufferedInputStream(in));
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.inbox;
+
+import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.connection.PostLoginEvent;
+import com.velocitypowered.api.event.player.ServerPostConnectEvent;
+import com.velocitypowered.api.proxy.Player;
+import off.szymon.vmessage.VMessagePlugin;
+import off.szymon.vmessage.config.ConfigManager;
+import off.szymon.vmessage.config.RuntimeConfig;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps /message messages sent to offline players in an {@link InboxStore} and delivers them when the player joins.
+ * <p>
+ * Offline players are found by the last name they joined with, remembered in {@code inbox/players.log}.
+ */
+public class OfflineInbox {
+
+    private final InboxStore store;
+    private final Path playersFile;
+    // Lower case name, last known player with that name
+    private final Map<String, KnownPlayer> players = new ConcurrentHashMap<>();
+    private final Map<UUID, String> names = new ConcurrentHashMap<>();
+
+    public OfflineInbox() throws IOException {
+        Path folder = VMessagePlugin.get().getDataFolder().toPath().resolve("inbox");
+        store = new InboxStore(folder);
+        playersFile = folder.resolve("players.log");
+        if (Files.exists(playersFile)) {
+            for (String line : Files.readAllLines(playersFile, StandardCharsets.UTF_8)) {
+                int space = line.indexOf(' ');
+                if (space <= 0) continue;
+                try {
+                    remember(UUID.fromString(line.substring(0, space)), line.substring(space + 1));
+                } catch (IllegalArgumentException ignored) {
+                    // A line cut short by a crash
+                }
+            }
+        }
+        for (Player player : VMessagePlugin.get().getServer().getAllPlayers()) {
+            onJoin(player);
+        }
+    }
+
+    public enum Result {
+        SENT,
+        FULL,
+        FAILED
+    }
+
+    /**
+     * @return the player that last joined with the name (ignoring case), empty if no one did
+     */
+    public Optional<KnownPlayer> findPlayer(String name) {
+        return Optional.ofNullable(players.get(name.toLowerCase(Locale.ROOT)));
+    }
+
+    /**
+     * @return the name the player last joined with, empty if they never did
+     */
+    public Optional<String> findName(UUID uniqueId) {
+        return Optional.ofNullable(names.get(uniqueId));
+    }
+
+    /**
+     * @param message the line to show the recipient, as MiniMessage
+     */
+    public Result send(UUID recipient, String message) {
+        int maxMessages = ConfigManager.get().getRuntime().message().offline().maxMessagesPerPlayer();
+        try {
+            return store.append(recipient, System.currentTimeMillis(), message, maxMessages) ? Result.SENT : Result.FULL;
+        } catch (IOException e) {
+            VMessagePlugin.get().getLogger().error("Failed to store an offline message: {}", e.getMessage());
+            return Result.FAILED;
+        }
+    }
+
+    public int getRecipientCount() {
+        return store.getRecipientCount();
+    }
+
+    private void onJoin(Player player) {
+        String name = player.getUsername();
+        if (name.equals(names.get(player.getUniqueId()))) return;
+        remember(player.getUniqueId(), name);
+        try {
+            Files.writeString(playersFile, player.getUniqueId() + " " + name + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            VMessagePlugin.get().getLogger().warn("Failed to remember the name of {}: {}", name, e.getMessage());
+        }
+    }
+
+    private void remember(UUID uniqueId, String name) {
+        String previous = names.put(uniqueId, name);
+        if (previous != null) players.remove(previous.toLowerCase(Locale.ROOT), new KnownPlayer(uniqueId, previous));
+        players.put(name.toLowerCase(Locale.ROOT), new KnownPlayer(uniqueId, name));
+    }
+
+    private void deliver(Player player) {
+        // Left again before this ran, the messages stay for the next join
+        if (!player.isActive()) return;
+        List<String> messages;
+        try {
+            messages = store.take(player.getUniqueId());
+        } catch (IOException e) {
+            VMessagePlugin.get().getLogger().error("Failed to deliver the offline messages of {}: {}", player.getUsername(), e.getMessage());
+            return;
+        }
+        if (messages.isEmpty()) return;
+        RuntimeConfig.OfflineMessages config = ConfigManager.get().getRuntime().message().offline();
+        player.sendRichMessage(config.deliveredHeader().replace("%count%", String.valueOf(messages.size())));
+        for (String message : messages) {
+            player.sendRichMessage(message);
+        }
+        try {
+            store.cleanUp();
+        } catch (IOException e) {
+            VMessagePlugin.get().getLogger().warn("Failed to clean up the offline inbox: {}", e.getMessage());
+        }
+    }
+
+    @Subscribe
+    public void onLogin(PostLoginEvent e) {
+        VMessagePlugin.get().getAsyncExecutor().execute(() -> onJoin(e.getPlayer()));
+    }
+
+    @Subscribe
+    public void onServerConnect(ServerPostConnectEvent e) {
+        // Only once the player is on a server, so the messages are not sent before they can be shown
+        if (e.getPreviousServer() != null) return;
+        VMessagePlugin.get().getAsyncExecutor().execute(() -> deliver(e.getPlayer()));
+    }
+
+    public record KnownPlayer(UUID uniqueId, String name) {}
+}
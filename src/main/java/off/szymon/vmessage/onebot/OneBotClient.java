@@ -14,7 +14,6 @@ package off.szymon.vmessage.onebot;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
-import net.kyori.adventure.text.minimessage.MiniMessage;
 import off.szymon.vmessage.VMessagePlugin;
 import off.szymon.vmessage.config.ConfigManager;
 
@@ -40,15 +39,18 @@ public class OneBotClient {
                 .build();
         this.gson = new Gson();
         
-        var config = ConfigManager.get().getConfig().getOnebot();
-        this.apiUrl = config.getApiUrl();
+        var config = ConfigManager.get().getRuntime().onebot();
+        this.apiUrl = config.apiUrl();
         // Use accessTokenSend only
-        this.accessToken = config.getAccessTokenSend();
-        this.groupId = config.getGroupId();
+        this.accessToken = config.accessTokenSend();
+        this.groupId = config.groupId();
     }
 
+    /**
+     * @param message plain text, formatting is removed by the caller when the message is rendered
+     */
     public void sendGroupMessage(String message) {
-        if (!ConfigManager.get().getConfig().getOnebot().getEnabled()) {
+        if (!ConfigManager.get().getRuntime().onebot().enabled()) {
             return;
         }
 
@@ -57,13 +59,10 @@ public class OneBotClient {
             return;
         }
 
-        // Convert MiniMessage to plain text
-        String plainText = MiniMessage.miniMessage().stripTags(message);
-
         // Build request body
         JsonObject requestBody = new JsonObject();
         requestBody.addProperty("group_id", groupId);
-        requestBody.addProperty("message", plainText);
+        requestBody.addProperty("message", message);
         requestBody.addProperty("auto_escape", false);
 
         String jsonBody = gson.toJson(requestBody);
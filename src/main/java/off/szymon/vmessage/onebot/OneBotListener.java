@@ -19,7 +19,9 @@ import com.google.gson.JsonParser;
 import com.velocitypowered.api.proxy.ProxyServer;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.minimessage.MiniMessage;
+import off.szymon.vmessage.Broadcaster;
 import off.szymon.vmessage.VMessagePlugin;
+import off.szymon.vmessage.bus.MessageEvent;
 import off.szymon.vmessage.config.ConfigManager;
 import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.Request;
@@ -96,6 +98,14 @@ public class OneBotListener {
         start();
     }
 
+    private static long parseQqId(String senderId) {
+        try {
+            return Long.parseLong(senderId);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     private static String sanitizeDisplayName(String s) {
         if (s == null || s.isEmpty()) {
             return s;
@@ -220,8 +230,8 @@ public class OneBotListener {
                 @Override
                 public void succeeded(String body) {
                     try {
-                        var config = ConfigManager.get().getConfig().getOnebot();
-                    String configuredToken = config.getCallback().getAccessTokenCallback();
+                        var config = ConfigManager.get().getRuntime().onebot();
+                    String configuredToken = config.accessTokenCallback();
                     if (configuredToken != null && !configuredToken.isEmpty()) {
                         String authHeader = request.getHeaders().get(HttpHeader.AUTHORIZATION);
                         if (authHeader == null || !authHeader.startsWith("Bearer ") || !authHeader.substring(7).equals(configuredToken)) {
@@ -231,7 +241,7 @@ public class OneBotListener {
                         }
                     }
 
-                    if (config.getDebug()) {
+                    if (config.debug()) {
                         String bodyPreview = body.length() > 2000 ? body.substring(0, 2000) + "... (truncated)" : body;
                         VMessagePlugin.get().getLogger().info("OneBot callback request body: {}", bodyPreview);
                     }
@@ -246,7 +256,7 @@ public class OneBotListener {
                         return;
                     }
 
-                    String configuredGroupId = ConfigManager.get().getConfig().getOnebot().getGroupId();
+                    String configuredGroupId = config.groupId();
                     if (configuredGroupId != null && !configuredGroupId.isEmpty()) {
                         String eventGroupId = null;
                         if (event.has("group_id")) {
@@ -265,7 +275,12 @@ public class OneBotListener {
                         }
                     }
 
-                    if (!ConfigManager.get().getConfig().getOnebot().getForwardToGame().getEnabled()) {
+                    if (!config.forwardToGame()) {
+                        sendJsonResponse(response, 200, "{}", callback);
+                        return;
+                    }
+                    // Shed by the load governor, the message is acknowledged and dropped
+                    if (!VMessagePlugin.get().getLoadGovernor().relaysQq()) {
                         sendJsonResponse(response, 200, "{}", callback);
                         return;
                     }
@@ -296,11 +311,11 @@ public class OneBotListener {
                                 senderName = cachedName;
                             }
                         }
-                        if (config.getNicknameClean()) {
+                        if (config.nicknameClean()) {
                             senderName = sanitizeDisplayName(senderName);
                         }
 
-                        String format = config.getForwardToGame().getFormat().getToGame();
+                        String format = config.toGameFormat();
                         String formattedMessage = format
                                 .replace("%message%", messageText)
                                 .replace("%sender%", senderName)
@@ -308,9 +323,13 @@ public class OneBotListener {
                                 .replace("%sender_role%", senderRole);
 
                         String finalFormattedMessage = formattedMessage;
+                        String finalSenderName = senderName;
+                        long qqId = parseQqId(senderId);
                         proxyServer.getScheduler().buildTask(VMessagePlugin.get(), () -> {
                             Component message = MiniMessage.miniMessage().deserialize(finalFormattedMessage);
-                            proxyServer.sendMessage(message);
+                            Broadcaster.sendExcept(message, VMessagePlugin.get().getIgnoreManager().getQqIgnorers(qqId));
+                            VMessagePlugin.get().getEventBus().publish(MessageEvent.message(MessageEvent.Kind.QQ,
+                                    null, finalSenderName, null, messageText, null));
                         }).schedule();
                     }
 
@@ -344,7 +363,7 @@ public class OneBotListener {
                     String qq = data.has("qq") ? data.get("qq").getAsString() : "";
                     if (!qq.isEmpty()) {
                         String name = groupMemberNames.getOrDefault(qq, qq);
-                        if (ConfigManager.get().getConfig().getOnebot().getNicknameClean()) {
+                        if (ConfigManager.get().getRuntime().onebot().nicknameClean()) {
                             name = sanitizeDisplayName(name);
                         }
                         sb.append("@").append(name);
@@ -0,0 +1,195 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.onebot;
+
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import off.szymon.vmessage.VMessagePlugin;
+import off.szymon.vmessage.bus.EventSink;
+import off.szymon.vmessage.bus.MessageEvent;
+import off.szymon.vmessage.config.ConfigManager;
+import off.szymon.vmessage.config.RuntimeConfig;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Forwards the game's events to the QQ group, as enabled in {@code forward-to-qq}
+ */
+public class OneBotSink implements EventSink {
+
+    private volatile OneBotClient oneBotClient;
+    // Pending leave messages (for delay and rejoin filtering)
+    private final ConcurrentHashMap<String, ScheduledTask> pendingLeaveTasks = new ConcurrentHashMap<>();
+    // Pattern for QQ at from game chat: @ + 5-11 digits, e.g. @1234567
+    // Note: this only supports pure numeric QQ ids; texts like test@1234567.com may be partially treated as QQ at.
+    private static final Pattern QQ_AT_PATTERN = Pattern.compile("@([0-9]{5,11})");
+
+    public OneBotSink() {
+        reload();
+    }
+
+    @Override
+    public String getName() {
+        return "OneBot";
+    }
+
+    @Override
+    public void onEvents(List<MessageEvent> events) {
+        OneBotClient oneBotClient = this.oneBotClient;
+        if (oneBotClient == null) return;
+        RuntimeConfig config = ConfigManager.get().getRuntime();
+        RuntimeConfig.ForwardToQq forward = config.onebot().forwardToQq();
+        boolean notices = VMessagePlugin.get().getLoadGovernor().forwardsNotices();
+        for (MessageEvent event : events) {
+            switch (event.kind()) {
+                case CHAT -> {
+                    // Local and group chat stays in game
+                    if (forward.chat() && event.channel() == null) {
+                        oneBotClient.sendGroupMessage(formatMessageForQQ(config, QqMessageKind.CHAT, event.sender(), qqContent(config, event), event.server(), null));
+                    }
+                }
+                case BROADCAST -> {
+                    if (forward.broadcast()) {
+                        oneBotClient.sendGroupMessage(formatMessageForQQ(config, QqMessageKind.BROADCAST, event.sender(), qqContent(config, event), null, null));
+                    }
+                }
+                case JOIN -> {
+                    if (!forward.join() || !notices) continue;
+                    if (event.isSummary()) {
+                        oneBotClient.sendGroupMessage(formatSummaryForQQ(config, QqMessageKind.JOIN_SUMMARY, event));
+                    } else {
+                        join(config, oneBotClient, event);
+                    }
+                }
+                case LEAVE -> {
+                    if (!forward.leave() || !notices) continue;
+                    // A summary is not delayed, the players in it are not tracked for a fast rejoin
+                    if (event.isSummary()) {
+                        oneBotClient.sendGroupMessage(formatSummaryForQQ(config, QqMessageKind.LEAVE_SUMMARY, event));
+                    } else {
+                        leave(config, oneBotClient, event);
+                    }
+                }
+                case CHANGE -> {
+                    if (!forward.change() || !notices) continue;
+                    if (event.isSummary()) {
+                        oneBotClient.sendGroupMessage(formatSummaryForQQ(config, QqMessageKind.CHANGE_SUMMARY, event));
+                    } else {
+                        oneBotClient.sendGroupMessage(formatMessageForQQ(config, QqMessageKind.CHANGE, event.sender(), null, event.server(), event.oldServer()));
+                    }
+                }
+                case QQ -> {
+                    // Came from the group, never sent back
+                }
+            }
+        }
+    }
+
+    private void join(RuntimeConfig config, OneBotClient oneBotClient, MessageEvent event) {
+        String playerName = event.sender();
+
+        // Check if there's a pending leave message (player rejoined during delay)
+        ScheduledTask pendingLeave = pendingLeaveTasks.remove(playerName);
+        if (pendingLeave != null) {
+            // Cancel leave message and filter out join message (fast rejoin)
+            pendingLeave.cancel();
+            VMessagePlugin.get().getLogger().debug("Cancelled pending leave message for {} and filtered join message due to fast rejoin", playerName);
+        } else {
+            // Normal join, send message
+            oneBotClient.sendGroupMessage(formatMessageForQQ(config, QqMessageKind.JOIN, playerName, null, event.server(), null));
+        }
+    }
+
+    private void leave(RuntimeConfig config, OneBotClient oneBotClient, MessageEvent event) {
+        String playerName = event.sender();
+        int delay = config.onebot().forwardToQq().leaveDelay() * 1000;
+
+        // Prepare message
+        String qqMessage = formatMessageForQQ(config, QqMessageKind.LEAVE, playerName, null, event.server(), null);
+
+        // Delay sending leave message (if player rejoins during delay, this will be cancelled)
+        ScheduledTask task = VMessagePlugin.get().getServer().getScheduler()
+                .buildTask(VMessagePlugin.get(), () -> {
+                    // Check if player rejoined during delay (task might have been cancelled)
+                    if (!pendingLeaveTasks.containsKey(playerName)) {
+                        return; // Task was cancelled due to rejoin
+                    }
+                    pendingLeaveTasks.remove(playerName);
+                    oneBotClient.sendGroupMessage(qqMessage);
+                })
+                .delay(delay, TimeUnit.MILLISECONDS)
+                .schedule();
+
+        pendingLeaveTasks.put(playerName, task);
+        VMessagePlugin.get().getLogger().debug("Scheduled leave message for {} with {}ms delay", playerName, delay);
+    }
+
+    /**
+     * Convert in-game @QQ patterns (e.g. @2483654847) into QQ group at CQ codes for OneBot/NapCat.
+     * <p>
+     * Only pure numeric QQ ids are supported. This may affect strings like "test@1234567.com",
+     * whose "@1234567" part will be interpreted as a QQ at.
+     */
+    private String convertGameAtToQqAt(String message) {
+        if (message == null || message.indexOf('@') == -1) {
+            return message;
+        }
+        return QQ_AT_PATTERN.matcher(message).replaceAll("[CQ:at,qq=$1]");
+    }
+
+    /**
+     * The message content as sent to QQ, reusing the already parsed content when formatting is stripped
+     */
+    private String qqContent(RuntimeConfig config, MessageEvent event) {
+        return config.onebot().stripFormattingInQq() || event.content() == null
+                ? event.plainContent()
+                : MiniMessage.miniMessage().stripTags(event.content());
+    }
+
+    /**
+     * @param message the message content, already converted to plain text
+     */
+    private String formatMessageForQQ(RuntimeConfig config, QqMessageKind kind, String player, @Nullable String message, @Nullable String server, @Nullable String oldServer) {
+        // Convert in-game @QQ to CQ at codes before sending to QQ group
+        String qqMessage = message != null ? convertGameAtToQqAt(message) : "";
+        return config.onebot().forwardToQq().format(kind).render((type, key) -> switch (type) {
+            case PLAYER -> player;
+            case MESSAGE -> qqMessage;
+            case SERVER, NEW_SERVER -> server != null ? config.plainAlias(server) : "";
+            case OLD_SERVER -> oldServer != null ? config.plainAlias(oldServer) : "";
+            default -> "";
+        });
+    }
+
+    private String formatSummaryForQQ(RuntimeConfig config, QqMessageKind kind, MessageEvent event) {
+        return config.onebot().forwardToQq().format(kind).render((type, key) -> switch (type) {
+            case COUNT -> String.valueOf(event.count());
+            case SERVER, NEW_SERVER -> event.server() != null ? config.plainAlias(event.server()) : "";
+            case OLD_SERVER -> event.oldServer() != null ? config.plainAlias(event.oldServer()) : "";
+            default -> "";
+        });
+    }
+
+    public void reload() {
+        if (ConfigManager.get().getRuntime().onebot().enabled()) {
+            // Always recreate to pick up config changes (groupId, apiUrl, accessToken)
+            oneBotClient = new OneBotClient();
+        } else {
+            oneBotClient = null;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.onebot;
+
+/**
+ * The kinds of game events forwarded to the QQ group, each with its own format in {@code forward-to-qq.format}
+ */
+public enum QqMessageKind {
+    CHAT,
+    JOIN,
+    LEAVE,
+    CHANGE,
+    BROADCAST,
+    // Summaries of many players, see NoticeCoalescer
+    JOIN_SUMMARY,
+    LEAVE_SUMMARY,
+    CHANGE_SUMMARY
+}
@@ -0,0 +1,278 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.pipeline;
+
+import off.szymon.vmessage.VMessagePlugin;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Runs chat work on a fixed set of single threaded lanes, picked by hashing the player's UUID.
+ * <p>
+ * All messages of one player go through the same lane, so they are broadcast in the order they were sent,
+ * while different players are spread over the lanes and handled in parallel. Each lane has a bounded queue,
+ * a message that does not fit is refused instead of piling up.
+ * <p>
+ * A task that has to wait for something slow (a mute lookup) does not block its lane, see {@link #await}.
+ * The player's later tasks are held until it is done, while the lane goes on with other players.
+ */
+public class ChatPipeline {
+
+    private final ThreadPoolExecutor[] lanes;
+    private final int queueSize;
+    // Players with a task waiting in await, only changed on the player's lane
+    private final Map<UUID, Held> held = new ConcurrentHashMap<>();
+    // The task running on the current lane thread
+    private final ThreadLocal<Task> running = new ThreadLocal<>();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong laneNanos = new AtomicLong();
+
+    public ChatPipeline(int laneCount, int queueSize) {
+        this.queueSize = Math.max(1, queueSize);
+        lanes = new ThreadPoolExecutor[Math.max(1, laneCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            String threadName = "vMessage Chat Lane #" + (i + 1);
+            lanes[i] = new ThreadPoolExecutor(
+                    1, 1,
+                    0, TimeUnit.MILLISECONDS,
+                    // Bounded in submit, so resuming an awaited task is never refused
+                    new LinkedBlockingQueue<>(),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy()
+            );
+        }
+    }
+
+    /**
+     * Queues the task on the player's lane, after all of their earlier tasks
+     *
+     * @return false if the lane's queue (or the player's held tasks) is full and the task was not queued
+     */
+    public boolean submit(UUID player, Runnable task) {
+        ThreadPoolExecutor lane = lane(player);
+        Held playerHeld = held.get(player);
+        if (lane.getQueue().size() >= queueSize || (playerHeld != null && playerHeld.size >= queueSize)) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        long queued = System.nanoTime();
+        try {
+            lane.execute(() -> runOrHold(player, new Task(task, queued)));
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Lets the task running on the player's lane continue once the future completes, without blocking the lane.
+     * The player's tasks queued after it are held until the continuation has run on the lane.
+     * <p>
+     * Must be called from a task running on the player's lane, and at most once per task.
+     */
+    public <T> void await(UUID player, CompletableFuture<T> future, BiConsumer<? super T, ? super Throwable> continuation) {
+        Task task = running.get();
+        if (task == null) throw new IllegalStateException("await must be called from a task running on a chat lane");
+        // Counted once the continuation is done, the time waiting for the future only in the total
+        task.awaited = true;
+        Held playerHeld = new Held();
+        held.put(player, playerHeld);
+        future.whenComplete((result, throwable) -> lane(player).execute(() ->
+                resume(player, playerHeld, new Task(() -> continuation.accept(result, throwable), task))));
+    }
+
+    private void runOrHold(UUID player, Task task) {
+        Held playerHeld = held.get(player);
+        if (playerHeld != null) {
+            // Waiting behind an awaited task is not lane time
+            task.laneNanos += System.nanoTime() - task.since;
+            playerHeld.add(task);
+        } else {
+            run(task);
+        }
+    }
+
+    private void resume(UUID player, Held playerHeld, Task continuation) {
+        held.remove(player, playerHeld);
+        run(continuation);
+        Task next;
+        while ((next = playerHeld.poll()) != null) {
+            Held again = held.get(player);
+            if (again != null) {
+                // One of the held tasks is waiting now, the rest stay in order behind it
+                again.add(next);
+                while ((next = playerHeld.poll()) != null) again.add(next);
+                return;
+            }
+            next.since = System.nanoTime();
+            run(next);
+        }
+    }
+
+    private void run(Task task) {
+        running.set(task);
+        try {
+            task.runnable.run();
+        } catch (Throwable t) {
+            VMessagePlugin.get().getLogger().error("Error while handling a chat message: {}", t.getMessage(), t);
+        } finally {
+            running.remove();
+            long now = System.nanoTime();
+            task.laneNanos += now - task.since;
+            // The awaited task finished on this lane before its continuation was run
+            if (task.awaitedTask != null) task.laneNanos += task.awaitedTask.laneNanos;
+            if (!task.awaited) {
+                processed.incrementAndGet();
+                totalNanos.addAndGet(now - task.queued);
+                laneNanos.addAndGet(task.laneNanos);
+            }
+        }
+    }
+
+    /**
+     * Only changed on the task's lane once it was handed to it
+     */
+    private static final class Task {
+
+        private final Runnable runnable;
+        // When the message was first queued
+        private final long queued;
+        private final @Nullable Task awaitedTask;
+        // When the task last got in line for the lane
+        private long since;
+        // Time in line for or running on the lane before since
+        private long laneNanos;
+        private boolean awaited;
+
+        Task(Runnable runnable, long queued) {
+            this.runnable = runnable;
+            this.queued = queued;
+            this.awaitedTask = null;
+            this.since = queued;
+        }
+
+        /**
+         * The continuation of an awaited task, getting in line for the lane now
+         */
+        Task(Runnable runnable, Task awaitedTask) {
+            this.runnable = runnable;
+            this.queued = awaitedTask.queued;
+            this.awaitedTask = awaitedTask;
+            this.since = System.nanoTime();
+        }
+    }
+
+    /**
+     * The tasks of a player held behind an awaited one, only used on the player's lane
+     */
+    private static final class Held {
+
+        private final ArrayDeque<Task> tasks = new ArrayDeque<>();
+        // Read by submit on other threads
+        private volatile int size;
+
+        void add(Task task) {
+            tasks.add(task);
+            size = tasks.size();
+        }
+
+        Task poll() {
+            Task task = tasks.poll();
+            size = tasks.size();
+            return task;
+        }
+    }
+
+    private ThreadPoolExecutor lane(UUID player) {
+        // Spread the bits first, version 4 UUIDs are random but offline mode ones are name based
+        int hash = player.hashCode();
+        hash ^= hash >>> 16;
+        return lanes[Math.floorMod(hash, lanes.length)];
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * @return the number of tasks waiting in the fullest lane
+     */
+    public int getMaxQueueDepth() {
+        int max = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            max = Math.max(max, lane.getQueue().size());
+        }
+        return max;
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    /**
+     * @return the total time tasks took from being queued until they were done, waiting for {@link #await}ed
+     * futures and behind awaited tasks included
+     */
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    /**
+     * @return the total time tasks were queued or running on their lane, which is how far behind the lanes are
+     */
+    public long getLaneNanos() {
+        return laneNanos.get();
+    }
+
+    public long getAverageLaneMicros() {
+        long count = processed.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(laneNanos.get() / count);
+    }
+
+    public long getAverageTotalMicros() {
+        long count = processed.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos.get() / count);
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
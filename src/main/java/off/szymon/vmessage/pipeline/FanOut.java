@@ -0,0 +1,174 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.pipeline;
+
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+import net.kyori.adventure.text.Component;
+import off.szymon.vmessage.VMessagePlugin;
+import off.szymon.vmessage.config.ConfigManager;
+import off.szymon.vmessage.config.RuntimeConfig;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends a message to many players at once.
+ * <p>
+ * In {@code PARALLEL} mode the recipients are split into chunks of {@code chunk-size} players, the calling thread
+ * sends the first chunk while the fan-out threads send the others, and the call returns once every chunk is sent.
+ * Waiting keeps the messages of one sender in order for every recipient. When the threads are all busy, the caller
+ * sends the chunk itself. {@code SEQUENTIAL} mode, and any audience of a single chunk, is sent on the calling thread.
+ */
+public class FanOut {
+
+    public enum Mode {
+        SEQUENTIAL,
+        PARALLEL
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong deliveries = new AtomicLong();
+    private final AtomicLong recipients = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public FanOut(int parallelism) {
+        AtomicInteger threadId = new AtomicInteger();
+        int threads = Math.max(1, parallelism);
+        executor = new ThreadPoolExecutor(
+                threads, threads,
+                30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "vMessage Fan-out #" + threadId.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // Sent by the caller when the threads are busy, or stopped, so every chunk is always sent
+                (task, pool) -> task.run()
+        );
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Sends the message to the console and every online player except the given ones
+     */
+    public void sendToAll(Component message, Set<UUID> excluded) {
+        ProxyServer server = VMessagePlugin.get().getServer();
+        server.getConsoleCommandSource().sendMessage(message);
+        Collection<Player> players = server.getAllPlayers();
+        if (excluded.isEmpty()) {
+            send(message, players instanceof List<Player> list ? list : new ArrayList<>(players));
+            return;
+        }
+        List<Player> audience = new ArrayList<>(players.size());
+        for (Player player : players) {
+            if (!excluded.contains(player.getUniqueId())) audience.add(player);
+        }
+        send(message, audience);
+    }
+
+    /**
+     * Sends the message to the players, returning once it was sent to all of them
+     */
+    public void send(Component message, List<Player> audience) {
+        if (audience.isEmpty()) return;
+        long start = System.nanoTime();
+        RuntimeConfig.FanOut config = ConfigManager.get().getRuntime().fanOut();
+        int chunkSize = config.chunkSize();
+        if (config.mode() == Mode.SEQUENTIAL || audience.size() <= chunkSize) {
+            sendChunk(message, audience, 0, audience.size());
+        } else {
+            int chunks = (audience.size() + chunkSize - 1) / chunkSize;
+            CountDownLatch done = new CountDownLatch(chunks - 1);
+            for (int i = 1; i < chunks; i++) {
+                int from = i * chunkSize;
+                int to = Math.min(audience.size(), from + chunkSize);
+                executor.execute(() -> {
+                    try {
+                        sendChunk(message, audience, from, to);
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            sendChunk(message, audience, 0, chunkSize);
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        record(audience.size(), System.nanoTime() - start);
+    }
+
+    private static void sendChunk(Component message, List<Player> audience, int from, int to) {
+        for (int i = from; i < to; i++) {
+            try {
+                audience.get(i).sendMessage(message);
+            } catch (Exception e) {
+                // One broken connection must not stop the rest of the chunk
+                VMessagePlugin.get().getLogger().debug("Failed to send a message to {}: {}", audience.get(i).getUsername(), e.getMessage());
+            }
+        }
+    }
+
+    private void record(int count, long nanos) {
+        deliveries.incrementAndGet();
+        recipients.addAndGet(count);
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getDeliveries() {
+        return deliveries.get();
+    }
+
+    public long getRecipients() {
+        return recipients.get();
+    }
+
+    /**
+     * @return the average time from starting a delivery until the last recipient was sent the message
+     */
+    public long getAverageMicros() {
+        long count = deliveries.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalNanos.get() / count);
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.get();
+    }
+
+    public long getMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxNanos.get());
+    }
+
+    public int getParallelism() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.pipeline;
+
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import off.szymon.vmessage.VMessagePlugin;
+import off.szymon.vmessage.config.ConfigManager;
+import off.szymon.vmessage.config.RuntimeConfig;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drops less important messages while chat is falling behind, so chat itself stays fast.
+ * <p>
+ * Every second the fullest {@link ChatPipeline} lane, the average time the last second's chat messages spent on
+ * their lane and the average time of its {@link FanOut} deliveries are compared with the {@code load-shedding}
+ * thresholds. The level goes up as soon as a threshold is reached, and down one level at a time once the load
+ * stayed under it for {@code recover-after} seconds.
+ */
+public class LoadGovernor {
+
+    public enum Level {
+        NORMAL("everything is sent"),
+        NO_NOTICES("join, leave and change messages are not shown in game"),
+        NO_QQ_NOTICES("join, leave and change messages are not shown in game or forwarded to QQ"),
+        NO_QQ_RELAY("join, leave and change messages and QQ messages are not shown");
+
+        private final String description;
+
+        Level(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    private final ChatPipeline chatPipeline;
+    private final FanOut fanOut;
+    private final ScheduledTask task;
+    private volatile Level level = Level.NORMAL;
+    // Only used on the scheduler's thread
+    private long lastProcessed;
+    private long lastChatNanos;
+    private long lastDeliveries;
+    private long lastFanOutNanos;
+    private int calmSeconds;
+    private volatile int queuePercent;
+    private volatile long latencyMillis;
+
+    public LoadGovernor(ChatPipeline chatPipeline, FanOut fanOut) {
+        this.chatPipeline = chatPipeline;
+        this.fanOut = fanOut;
+        task = VMessagePlugin.get().getServer().getScheduler()
+                .buildTask(VMessagePlugin.get(), this::tick)
+                .repeat(1, TimeUnit.SECONDS)
+                .schedule();
+    }
+
+    private void tick() {
+        long processed = chatPipeline.getProcessed();
+        // Time spent waiting for mute lookups is not the lanes falling behind
+        long chatNanos = chatPipeline.getLaneNanos();
+        long deliveries = fanOut.getDeliveries();
+        long fanOutNanos = fanOut.getTotalNanos();
+        long chatAverage = average(chatNanos - lastChatNanos, processed - lastProcessed);
+        long fanOutAverage = average(fanOutNanos - lastFanOutNanos, deliveries - lastDeliveries);
+        lastProcessed = processed;
+        lastChatNanos = chatNanos;
+        lastDeliveries = deliveries;
+        lastFanOutNanos = fanOutNanos;
+        queuePercent = chatPipeline.getMaxQueueDepth() * 100 / chatPipeline.getQueueSize();
+        latencyMillis = TimeUnit.NANOSECONDS.toMillis(Math.max(chatAverage, fanOutAverage));
+
+        RuntimeConfig.LoadShedding config = ConfigManager.get().getRuntime().loadShedding();
+        Level target = config.enabled() ? config.level(queuePercent, latencyMillis) : Level.NORMAL;
+        if (target.compareTo(level) > 0) {
+            calmSeconds = 0;
+            change(target);
+        } else if (target.compareTo(level) < 0) {
+            // A disabled governor goes back to normal right away
+            if (!config.enabled() || ++calmSeconds >= config.recoverAfter()) {
+                calmSeconds = 0;
+                change(config.enabled() ? Level.values()[level.ordinal() - 1] : Level.NORMAL);
+            }
+        } else {
+            calmSeconds = 0;
+        }
+    }
+
+    private void change(Level next) {
+        VMessagePlugin.get().getLogger().info("Load shedding {} -> {} ({}), fullest chat lane {}% full, {}ms latency",
+                level, next, next.getDescription(), queuePercent, latencyMillis);
+        level = next;
+    }
+
+    private static long average(long nanos, long count) {
+        return count <= 0 ? 0 : nanos / count;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * @return whether join, leave and change messages are shown in game
+     */
+    public boolean showsNotices() {
+        return level.compareTo(Level.NO_NOTICES) < 0;
+    }
+
+    /**
+     * @return whether join, leave and change messages are forwarded to QQ
+     */
+    public boolean forwardsNotices() {
+        return level.compareTo(Level.NO_QQ_NOTICES) < 0;
+    }
+
+    /**
+     * @return whether QQ messages are shown in game
+     */
+    public boolean relaysQq() {
+        return level.compareTo(Level.NO_QQ_RELAY) < 0;
+    }
+
+    /**
+     * @return how full the fullest chat lane was at the last check, in percent
+     */
+    public int getQueuePercent() {
+        return queuePercent;
+    }
+
+    /**
+     * @return the average chat or fan-out latency of the last second, whichever was higher
+     */
+    public long getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public void shutdown() {
+        task.cancel();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.pipeline;
+
+import com.velocitypowered.api.scheduler.ScheduledTask;
+import net.kyori.adventure.text.Component;
+import off.szymon.vmessage.Broadcaster;
+import off.szymon.vmessage.VMessagePlugin;
+import off.szymon.vmessage.bus.MessageEvent;
+import off.szymon.vmessage.config.ConfigManager;
+import off.szymon.vmessage.config.RuntimeConfig;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects join, leave and change messages into summaries while they arrive faster than {@code threshold} per second.
+ * <p>
+ * Below the threshold every message is sent as usual. Once a second goes over it, the messages are held and every
+ * {@code window} seconds the held ones are sent as one summary per server (or per pair of servers for a change),
+ * in game and on the event bus. A server with a single message in the window gets that message instead of a summary.
+ * Summaries stop after a window whose average rate was back under the threshold.
+ */
+public class NoticeCoalescer {
+
+    private record Pending(Component message, MessageEvent event) {}
+
+    private record Group(MessageEvent.Kind kind, String server, @Nullable String oldServer) {}
+
+    private final ScheduledTask task;
+    // Guarded by this
+    private List<Pending> pending = new ArrayList<>();
+    private int thisSecond;
+    private int thisWindow;
+    private int windowSeconds;
+    private volatile boolean coalescing;
+
+    public NoticeCoalescer() {
+        task = VMessagePlugin.get().getServer().getScheduler()
+                .buildTask(VMessagePlugin.get(), this::tick)
+                .repeat(1, TimeUnit.SECONDS)
+                .schedule();
+    }
+
+    /**
+     * @return true if the message was held for a summary, false if it should be sent now
+     */
+    public synchronized boolean offer(Component message, MessageEvent event) {
+        RuntimeConfig.Coalescing config = ConfigManager.get().getRuntime().coalescing();
+        if (!config.enabled() && !coalescing) return false;
+        thisSecond++;
+        thisWindow++;
+        if (!coalescing && thisSecond > config.threshold()) {
+            coalescing = true;
+            thisWindow = thisSecond;
+            windowSeconds = 0;
+            VMessagePlugin.get().getLogger().info("Over {} join/leave/change messages per second, sending them as summaries", config.threshold());
+        }
+        if (!coalescing) return false;
+        pending.add(new Pending(message, event));
+        return true;
+    }
+
+    private void tick() {
+        RuntimeConfig.Coalescing config = ConfigManager.get().getRuntime().coalescing();
+        List<Pending> batch;
+        synchronized (this) {
+            thisSecond = 0;
+            if (!coalescing) {
+                thisWindow = 0;
+                return;
+            }
+            if (++windowSeconds < config.window() && config.enabled()) return;
+            batch = pending;
+            pending = new ArrayList<>();
+            if (!config.enabled() || thisWindow <= config.threshold() * windowSeconds) {
+                coalescing = false;
+                VMessagePlugin.get().getLogger().info("Join/leave/change messages are back under {} per second, sending them one by one", config.threshold());
+            }
+            thisWindow = 0;
+            windowSeconds = 0;
+        }
+        try {
+            flush(config, batch);
+        } catch (Exception e) {
+            VMessagePlugin.get().getLogger().error("Failed to send join/leave/change summaries: {}", e.getMessage(), e);
+        }
+    }
+
+    private static void flush(RuntimeConfig.Coalescing config, List<Pending> batch) {
+        Map<Group, List<Pending>> groups = new LinkedHashMap<>();
+        for (Pending notice : batch) {
+            MessageEvent event = notice.event();
+            groups.computeIfAbsent(new Group(event.kind(), event.server(), event.oldServer()), group -> new ArrayList<>()).add(notice);
+        }
+
+        RuntimeConfig runtime = ConfigManager.get().getRuntime();
+        // Held before the load governor started shedding them
+        boolean show = VMessagePlugin.get().getLoadGovernor().showsNotices();
+        for (Map.Entry<Group, List<Pending>> entry : groups.entrySet()) {
+            List<Pending> notices = entry.getValue();
+            if (notices.size() == 1) {
+                if (show) Broadcaster.sendExcept(notices.get(0).message(), Set.of());
+                VMessagePlugin.get().getEventBus().publish(notices.get(0).event());
+                continue;
+            }
+            Group group = entry.getKey();
+            String count = String.valueOf(notices.size());
+            String msg = config.format(group.kind()).render((type, key) -> switch (type) {
+                case COUNT -> count;
+                case SERVER, NEW_SERVER -> group.server();
+                case OLD_SERVER -> group.oldServer() != null ? group.oldServer() : "";
+                case PROVIDER -> VMessagePlugin.get().getPlaceholderRegistry().resolve(key, null);
+                default -> "";
+            });
+            if (show) Broadcaster.sendExcept(runtime.componentCache().deserialize(msg), Set.of());
+            VMessagePlugin.get().getEventBus().publish(MessageEvent.summary(group.kind(), notices.size(), group.server(), group.oldServer()));
+        }
+    }
+
+    public boolean isCoalescing() {
+        return coalescing;
+    }
+
+    public synchronized int getPending() {
+        return pending.size();
+    }
+
+    public void shutdown() {
+        task.cancel();
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+
+package off.szymon.vmessage.placeholder;
+
+import com.velocitypowered.api.proxy.ProxyServer;
+import off.szymon.vmessage.VMessagePlugin;
+import off.szymon.vmessage.config.ConfigManager;
+
+/**
+ * The placeholders vMessage provides itself
+ */
+public final class BuiltinPlaceholders {
+
+    // One server tick, counts are recomputed at most this often
+    private static final long TICK_MILLIS = 50;
+
+    private BuiltinPlaceholders() {}
+
+    public static void registerAll(PlaceholderRegistry registry) {
+        ProxyServer server = VMessagePlugin.get().getServer();
+
+        // %online% - Players on the whole network
+        registry.register(new SimplePlaceholderProvider("online", PlaceholderProvider.Scope.GLOBAL, TICK_MILLIS,
+                (player, serverName) -> String.valueOf(server.getPlayerCount())));
+
+        // %server_online% - Players on the same server as the player
+        registry.register(new SimplePlaceholderProvider("server_online", PlaceholderProvider.Scope.SERVER, TICK_MILLIS,
+                (player, serverName) -> server.getServer(serverName)
+                        .map(registered -> String.valueOf(registered.getPlayersConnected().size()))
+                        .orElse(null)));
+
+        // %server_alias% - The player's server alias, resolving it is already cached by the aliases themselves
+        registry.register(new SimplePlaceholderProvider("server_alias", PlaceholderProvider.Scope.SERVER, 0,
+                (player, serverName) -> ConfigManager.get().getRuntime().parseAlias(serverName)));
+
+        // %ping% - The player's ping in milliseconds
+        registry.register(new SimplePlaceholderProvider("ping", PlaceholderProvider.Scope.PLAYER, 1000,
+                (player, serverName) -> String.valueOf(player.getPing())));
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+
+package off.szymon.vmessage.placeholder;
+
+import com.velocitypowered.api.proxy.Player;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A source of {@code %name%} placeholder values, usable in every chat, join, leave, change, broadcast and muted format.
+ * <p>
+ * Register providers with {@link PlaceholderRegistry#register}. Values are cached per {@link Scope} for
+ * {@link #getTtlMillis()}, so a provider is called at most once per TTL for each player/server no matter how
+ * many messages use it.
+ */
+public interface PlaceholderProvider {
+
+    enum Scope {
+        /** One value for the whole network */
+        GLOBAL,
+        /** One value per backend server, the server of the player the message is about */
+        SERVER,
+        /** One value per player, the player the message is about */
+        PLAYER
+    }
+
+    /**
+     * @return the placeholder name without the percent signs, only lowercase letters and underscores
+     */
+    String getName();
+
+    Scope getScope();
+
+    /**
+     * @return how long a value is reused for, 0 to never cache it
+     */
+    long getTtlMillis();
+
+    /**
+     * Called off the cache when a value is needed.
+     *
+     * @param player     the player the message is about, only null for {@link Scope#GLOBAL}
+     * @param serverName the real (not aliased) name of that player's server, only null for {@link Scope#GLOBAL}
+     * @return the value, or null to leave the placeholder as it is
+     */
+    @Nullable String resolve(@Nullable Player player, @Nullable String serverName);
+
+}
@@ -0,0 +1,118 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+
+package off.szymon.vmessage.placeholder;
+
+import com.velocitypowered.api.proxy.Player;
+import off.szymon.vmessage.VMessagePlugin;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registered {@link PlaceholderProvider}s and their cached values.
+ * <p>
+ * Other plugins can add their own providers through {@code VMessagePlugin.get().getPlaceholderRegistry()}.
+ * Formats only look providers up when a message is rendered, so a provider registered after a format was loaded
+ * is picked up right away.
+ */
+public class PlaceholderRegistry {
+
+    // Expired values are swept once the cache grows past this, e.g. after a lot of players left
+    private static final int SWEEP_THRESHOLD = 4096;
+
+    private final Map<String, PlaceholderProvider> providers = new ConcurrentHashMap<>();
+    private final Map<CacheKey, CachedValue> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a provider, replacing any provider with the same name
+     */
+    public void register(PlaceholderProvider provider) {
+        String name = provider.getName().toLowerCase(Locale.ROOT);
+        providers.put(name, provider);
+        invalidate(name);
+    }
+
+    public void unregister(String name) {
+        name = name.toLowerCase(Locale.ROOT);
+        providers.remove(name);
+        invalidate(name);
+    }
+
+    public boolean isRegistered(String name) {
+        return providers.containsKey(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @param name   the placeholder name without the percent signs
+     * @param player the player the message is about, null for console messages
+     * @return the value, or null if there is no such provider or it can't provide a value here
+     */
+    public @Nullable String resolve(String name, @Nullable Player player) {
+        PlaceholderProvider provider = providers.get(name);
+        if (provider == null) return null;
+
+        String serverName = null;
+        Object scopeKey;
+        switch (provider.getScope()) {
+            case PLAYER -> {
+                if (player == null) return null;
+                scopeKey = player.getUniqueId();
+                serverName = player.getCurrentServer().map(server -> server.getServerInfo().getName()).orElse(null);
+            }
+            case SERVER -> {
+                if (player == null) return null;
+                serverName = player.getCurrentServer().map(server -> server.getServerInfo().getName()).orElse(null);
+                if (serverName == null) return null;
+                scopeKey = serverName;
+            }
+            default -> scopeKey = "";
+        }
+
+        long ttl = provider.getTtlMillis();
+        if (ttl <= 0) return compute(provider, player, serverName);
+
+        CacheKey key = new CacheKey(name, scopeKey);
+        long now = System.currentTimeMillis();
+        CachedValue cached = cache.get(key);
+        if (cached != null && cached.expiresAt() > now) {
+            return cached.value();
+        }
+
+        String value = compute(provider, player, serverName);
+        if (cache.size() >= SWEEP_THRESHOLD) {
+            cache.values().removeIf(entry -> entry.expiresAt() <= now);
+        }
+        cache.put(key, new CachedValue(value, now + ttl));
+        return value;
+    }
+
+    private @Nullable String compute(PlaceholderProvider provider, @Nullable Player player, @Nullable String serverName) {
+        try {
+            return provider.resolve(player, serverName);
+        } catch (Exception e) {
+            VMessagePlugin.get().getLogger().warn("Placeholder %{}% failed to resolve: {}", provider.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void invalidate(String name) {
+        cache.keySet().removeIf(key -> key.name().equals(name));
+    }
+
+    private record CacheKey(String name, Object scopeKey) {}
+
+    private record CachedValue(@Nullable String value, long expiresAt) {}
+}
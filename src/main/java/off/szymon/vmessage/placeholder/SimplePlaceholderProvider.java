@@ -0,0 +1,50 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+
+package off.szymon.vmessage.placeholder;
+
+import com.velocitypowered.api.proxy.Player;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.BiFunction;
+
+/**
+ * A {@link PlaceholderProvider} backed by a function, for providers that don't need a class of their own
+ */
+public record SimplePlaceholderProvider(
+        String name,
+        Scope scope,
+        long ttlMillis,
+        BiFunction<@Nullable Player, @Nullable String, @Nullable String> function
+) implements PlaceholderProvider {
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Scope getScope() {
+        return scope;
+    }
+
+    @Override
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    @Override
+    public @Nullable String resolve(@Nullable Player player, @Nullable String serverName) {
+        return function.apply(player, serverName);
+    }
+}
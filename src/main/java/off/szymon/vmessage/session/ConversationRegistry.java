@@ -0,0 +1,117 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.session;
+
+import com.velocitypowered.api.event.PostOrder;
+import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.connection.DisconnectEvent;
+import com.velocitypowered.api.proxy.Player;
+import off.szymon.vmessage.config.ConfigManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Remembers who each player last got a private message from, so /reply knows who to answer.
+ * <p>
+ * A player's entry is removed when they disconnect, when it was not used for {@code reply-expiry} seconds,
+ * or when there are more than {@code reply-max-entries} entries (the least recently used ones go first).
+ */
+public class ConversationRegistry {
+
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+
+    /**
+     * Lets the receiver reply to the sender
+     */
+    public void messageSent(UUID sender, Player receiver) {
+        long now = System.currentTimeMillis();
+        Entry entry = new Entry(sender, now);
+        entries.put(receiver.getUniqueId(), entry);
+        // A player that already left must not get an entry that would never be removed
+        if (!receiver.isActive()) {
+            entries.remove(receiver.getUniqueId(), entry);
+            return;
+        }
+        int maxEntries = ConfigManager.get().getRuntime().message().replyMaxEntries();
+        if (maxEntries > 0 && entries.size() > maxEntries) trim(maxEntries, now);
+    }
+
+    /**
+     * @return who the player last got a message from, empty if no one or the conversation expired
+     */
+    public Optional<UUID> getReplyTarget(UUID uniqueId) {
+        Entry entry = entries.get(uniqueId);
+        if (entry == null) return Optional.empty();
+        long now = System.currentTimeMillis();
+        if (isExpired(entry, now)) {
+            if (entries.remove(uniqueId, entry)) expired.incrementAndGet();
+            return Optional.empty();
+        }
+        // Replying keeps the conversation alive
+        entries.replace(uniqueId, entry, new Entry(entry.target(), now));
+        return Optional.of(entry.target());
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * @return how many conversations were dropped for being idle longer than {@code reply-expiry}
+     */
+    public long getExpired() {
+        return expired.get();
+    }
+
+    /**
+     * @return how many conversations were dropped to stay within {@code reply-max-entries}
+     */
+    public long getEvicted() {
+        return evicted.get();
+    }
+
+    private static boolean isExpired(Entry entry, long now) {
+        long expiry = ConfigManager.get().getRuntime().message().replyExpiryMillis();
+        return expiry > 0 && now - entry.lastUsed() >= expiry;
+    }
+
+    // Trims to 90% of the bound, so the full scan runs once per many messages rather than on every one
+    private void trim(int maxEntries, long now) {
+        entries.forEach((uniqueId, entry) -> {
+            if (isExpired(entry, now) && entries.remove(uniqueId, entry)) expired.incrementAndGet();
+        });
+        int excess = entries.size() - (maxEntries - maxEntries / 10);
+        if (excess <= 0) return;
+        List<Map.Entry<UUID, Entry>> oldest = new ArrayList<>(entries.entrySet());
+        oldest.sort(Comparator.comparingLong(entry -> entry.getValue().lastUsed()));
+        for (Map.Entry<UUID, Entry> entry : oldest.subList(0, Math.min(excess, oldest.size()))) {
+            if (entries.remove(entry.getKey(), entry.getValue())) evicted.incrementAndGet();
+        }
+    }
+
+    @Subscribe(order = PostOrder.LAST)
+    public void onDisconnect(DisconnectEvent e) {
+        entries.remove(e.getPlayer().getUniqueId());
+    }
+
+    private record Entry(UUID target, long lastUsed) {}
+}
@@ -0,0 +1,153 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+
+package off.szymon.vmessage.session;
+
+import com.velocitypowered.api.event.PostOrder;
+import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.connection.DisconnectEvent;
+import com.velocitypowered.api.event.connection.PostLoginEvent;
+import com.velocitypowered.api.event.player.ServerPostConnectEvent;
+import com.velocitypowered.api.proxy.Player;
+import off.szymon.vmessage.VMessagePlugin;
+import off.szymon.vmessage.compatibility.LuckPermsCompatibilityProvider;
+import off.szymon.vmessage.config.ConfigManager;
+import off.szymon.vmessage.config.RuntimeConfig;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The online players that have each of a few permissions, e.g. everyone who can read staff chat.
+ * <p>
+ * A player's permissions are checked on login, on every server switch (LuckPerms contexts can differ per server)
+ * and whenever LuckPerms recalculates them or a user or group node changes, so asking who has a permission is a
+ * map lookup instead of a permission check for every online player. Without LuckPerms, changes made by another
+ * permission plugin are picked up on the player's next server switch.
+ * <p>
+ * Besides the constants of this class, the permissions of the chat format variants are indexed, as of the last
+ * {@link #reload()}.
+ */
+public class PermissionIndex {
+
+    public static final String STAFF_CHAT = "vmessage.staffchat";
+    public static final String SOCIAL_SPY = "vmessage.socialspy";
+
+    private static final List<String> PERMISSIONS = List.of(STAFF_CHAT, SOCIAL_SPY);
+
+    // Permission, online players that have it
+    private final Map<String, Set<Player>> audiences = new ConcurrentHashMap<>();
+
+    public PermissionIndex() {
+        for (String permission : PERMISSIONS) {
+            audiences.put(permission, ConcurrentHashMap.newKeySet());
+        }
+        reload();
+        LuckPermsCompatibilityProvider lp = VMessagePlugin.get().getLuckPermsCompatibilityProvider();
+        if (lp != null) {
+            lp.onUserDataRecalculate(VMessagePlugin.get(), this::update);
+            // Checked once LuckPerms applied the change, not while it is still being made
+            lp.onNodeMutate(VMessagePlugin.get(),
+                    user -> VMessagePlugin.get().getAsyncExecutor().execute(() -> update(user)),
+                    () -> VMessagePlugin.get().getAsyncExecutor().execute(this::updateAll));
+        }
+        updateAll();
+    }
+
+    /**
+     * Indexes the permissions of the configured chat format variants, and stops indexing the ones no longer used
+     */
+    public void reload() {
+        Set<String> indexed = new HashSet<>(PERMISSIONS);
+        for (RuntimeConfig.FormatVariant variant : ConfigManager.get().getRuntime().chat().variants()) {
+            indexed.add(variant.permission());
+        }
+        audiences.keySet().retainAll(indexed);
+        for (String permission : indexed) {
+            if (audiences.containsKey(permission)) continue;
+            // Filled before it is published, a message sent meanwhile still sees the old variants
+            Set<Player> players = ConcurrentHashMap.newKeySet();
+            for (Player player : VMessagePlugin.get().getServer().getAllPlayers()) {
+                if (player.hasPermission(permission)) players.add(player);
+            }
+            audiences.put(permission, players);
+        }
+    }
+
+    /**
+     * @return the online players with the permission, one of the constants of this class or a chat format variant's
+     */
+    public Set<Player> getAudience(String permission) {
+        Set<Player> players = findAudience(permission);
+        if (players == null) throw new IllegalArgumentException("Permission is not indexed: " + permission);
+        return players;
+    }
+
+    /**
+     * @return the online players with the permission, or null if it is not indexed
+     */
+    public @Nullable Set<Player> findAudience(String permission) {
+        Set<Player> players = audiences.get(permission);
+        return players != null ? Collections.unmodifiableSet(players) : null;
+    }
+
+    public void update(UUID uniqueId) {
+        VMessagePlugin.get().getServer().getPlayer(uniqueId).ifPresent(this::update);
+    }
+
+    public void updateAll() {
+        for (Player player : VMessagePlugin.get().getServer().getAllPlayers()) {
+            update(player);
+        }
+    }
+
+    private void update(Player player) {
+        for (Map.Entry<String, Set<Player>> entry : audiences.entrySet()) {
+            Set<Player> players = entry.getValue();
+            if (player.hasPermission(entry.getKey())) {
+                players.add(player);
+            } else {
+                players.remove(player);
+            }
+        }
+        // A player that left while being checked must not stay in the index
+        if (!player.isActive()) remove(player);
+    }
+
+    private void remove(Player player) {
+        for (Set<Player> players : audiences.values()) {
+            players.remove(player);
+        }
+    }
+
+    @Subscribe(order = PostOrder.FIRST)
+    public void onLogin(PostLoginEvent e) {
+        update(e.getPlayer());
+    }
+
+    @Subscribe(order = PostOrder.EARLY)
+    public void onServerConnect(ServerPostConnectEvent e) {
+        update(e.getPlayer());
+    }
+
+    @Subscribe(order = PostOrder.LAST)
+    public void onDisconnect(DisconnectEvent e) {
+        remove(e.getPlayer());
+    }
+}
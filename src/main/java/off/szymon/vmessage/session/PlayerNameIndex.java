@@ -0,0 +1,81 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.session;
+
+import com.velocitypowered.api.event.PostOrder;
+import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.connection.DisconnectEvent;
+import com.velocitypowered.api.event.connection.PostLoginEvent;
+import com.velocitypowered.api.proxy.Player;
+import off.szymon.vmessage.VMessagePlugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Online player names sorted case-insensitively, for tab completion of player arguments.
+ * <p>
+ * Names are added on login and removed on disconnect, so completing a prefix only walks the matching names
+ * instead of every online player.
+ */
+public class PlayerNameIndex {
+
+    // Lower case name, player
+    private final ConcurrentSkipListMap<String, Player> players = new ConcurrentSkipListMap<>();
+
+    public PlayerNameIndex() {
+        // Players that were already online when the plugin loaded
+        for (Player player : VMessagePlugin.get().getServer().getAllPlayers()) {
+            add(player);
+        }
+    }
+
+    /**
+     * @param prefix already lower case, e.g. from {@code SuggestionsBuilder#getRemainingLowerCase()}
+     * @return up to {@code limit} names starting with the prefix (ignoring case), in alphabetical order
+     */
+    public List<String> complete(String prefix, int limit) {
+        List<String> names = new ArrayList<>(Math.min(limit, 16));
+        var matching = prefix.isEmpty() ? players : players.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        for (Player player : matching.values()) {
+            if (names.size() >= limit) break;
+            names.add(player.getUsername());
+        }
+        return names;
+    }
+
+    public int getSize() {
+        return players.size();
+    }
+
+    private void add(Player player) {
+        players.put(key(player), player);
+    }
+
+    private static String key(Player player) {
+        return player.getUsername().toLowerCase(Locale.ROOT);
+    }
+
+    @Subscribe(order = PostOrder.FIRST)
+    public void onLogin(PostLoginEvent e) {
+        add(e.getPlayer());
+    }
+
+    @Subscribe(order = PostOrder.LAST)
+    public void onDisconnect(DisconnectEvent e) {
+        // Only if the name still belongs to this player, not to a newer session with the same name
+        players.remove(key(e.getPlayer()), e.getPlayer());
+    }
+}
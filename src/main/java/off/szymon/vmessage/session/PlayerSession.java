@@ -0,0 +1,77 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+
+package off.szymon.vmessage.session;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * What vMessage knows about an online player, created on login and dropped on disconnect.
+ * <p>
+ * The LuckPerms prefix, suffix and configured meta values are resolved ahead of time and swapped in as one
+ * immutable snapshot whenever LuckPerms recalculates the player's data, so reading them is just a field access.
+ */
+public final class PlayerSession {
+
+    private final UUID uniqueId;
+    private final String username;
+    private volatile Meta meta = Meta.EMPTY;
+
+    PlayerSession(UUID uniqueId, String username) {
+        this.uniqueId = uniqueId;
+        this.username = username;
+    }
+
+    public UUID getUniqueId() {
+        return uniqueId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * @return the LuckPerms prefix, empty if there is none
+     */
+    public String getPrefix() {
+        return meta.prefix();
+    }
+
+    /**
+     * @return the LuckPerms suffix, empty if there is none
+     */
+    public String getSuffix() {
+        return meta.suffix();
+    }
+
+    /**
+     * @return the meta value (empty if the player has none), or null if the key was not resolved ahead of time
+     */
+    public @Nullable String getMetaValue(String key) {
+        return meta.values().get(key);
+    }
+
+    void setMeta(Meta meta) {
+        this.meta = meta;
+    }
+
+    /**
+     * @param values meta key, value (empty if the player has none)
+     */
+    record Meta(String prefix, String suffix, Map<String, String> values) {
+        static final Meta EMPTY = new Meta("", "", Map.of());
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+
+package off.szymon.vmessage.session;
+
+import com.velocitypowered.api.event.PostOrder;
+import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.connection.DisconnectEvent;
+import com.velocitypowered.api.event.connection.PostLoginEvent;
+import com.velocitypowered.api.event.player.ServerPostConnectEvent;
+import com.velocitypowered.api.proxy.Player;
+import net.luckperms.api.cacheddata.CachedMetaData;
+import off.szymon.vmessage.VMessagePlugin;
+import off.szymon.vmessage.compatibility.LuckPermsCompatibilityProvider;
+import off.szymon.vmessage.config.ConfigManager;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a {@link PlayerSession} for every online player.
+ * <p>
+ * Sessions are created on login (or on first use, for players that were already online when the plugin loaded),
+ * refreshed when LuckPerms recalculates a user or the player changes server (LuckPerms contexts can differ per
+ * server), and removed after every other listener has handled the disconnect.
+ */
+public class SessionManager {
+
+    private final Map<UUID, PlayerSession> sessions = new ConcurrentHashMap<>();
+
+    public SessionManager() {
+        LuckPermsCompatibilityProvider lp = VMessagePlugin.get().getLuckPermsCompatibilityProvider();
+        if (lp != null) {
+            lp.onUserDataRecalculate(VMessagePlugin.get(), this::refresh);
+        }
+    }
+
+    /**
+     * @return the player's session, created if the player has none yet
+     */
+    public PlayerSession get(Player player) {
+        PlayerSession session = sessions.get(player.getUniqueId());
+        if (session != null) return session;
+
+        session = new PlayerSession(player.getUniqueId(), player.getUsername());
+        refresh(session, player);
+        // A player that already left must not get a session that would never be removed
+        if (!player.isActive()) return session;
+        PlayerSession existing = sessions.putIfAbsent(player.getUniqueId(), session);
+        return existing != null ? existing : session;
+    }
+
+    /**
+     * @return the meta value from the player's session, asking LuckPerms directly if the key was not resolved
+     * ahead of time (e.g. right after a reload), empty if the player has none or LuckPerms is not loaded
+     */
+    public String getMetaValue(Player player, String key) {
+        String value = get(player).getMetaValue(key);
+        if (value != null) return value;
+        LuckPermsCompatibilityProvider lp = VMessagePlugin.get().getLuckPermsCompatibilityProvider();
+        return lp != null ? orEmpty(lp.getMetaData(player).metaData().getMetaValue(key)) : "";
+    }
+
+    public Optional<PlayerSession> find(UUID uniqueId) {
+        return Optional.ofNullable(sessions.get(uniqueId));
+    }
+
+    /**
+     * Re-resolves the meta of the player with the given UUID, if they are online
+     */
+    public void refresh(UUID uniqueId) {
+        PlayerSession session = sessions.get(uniqueId);
+        if (session == null) return;
+        VMessagePlugin.get().getServer().getPlayer(uniqueId).ifPresent(player -> refresh(session, player));
+    }
+
+    /**
+     * Re-resolves the meta of every online player, e.g. after the meta placeholders changed on reload
+     */
+    public void refreshAll() {
+        for (PlayerSession session : sessions.values()) {
+            VMessagePlugin.get().getServer().getPlayer(session.getUniqueId()).ifPresent(player -> refresh(session, player));
+        }
+    }
+
+    private void refresh(PlayerSession session, Player player) {
+        LuckPermsCompatibilityProvider lp = VMessagePlugin.get().getLuckPermsCompatibilityProvider();
+        if (lp == null) return;
+        try {
+            CachedMetaData metaData = lp.getMetaData(player).metaData();
+            Map<String, String> values = new HashMap<>();
+            for (String key : ConfigManager.get().getRuntime().metaPlaceholders().values()) {
+                values.put(key, orEmpty(metaData.getMetaValue(key)));
+            }
+            session.setMeta(new PlayerSession.Meta(orEmpty(metaData.getPrefix()), orEmpty(metaData.getSuffix()), Map.copyOf(values)));
+        } catch (Exception e) {
+            VMessagePlugin.get().getLogger().warn("Failed to load LuckPerms data of {}: {}", player.getUsername(), e.getMessage());
+        }
+    }
+
+    private static String orEmpty(@Nullable String value) {
+        return value != null ? value : "";
+    }
+
+    @Subscribe(order = PostOrder.FIRST)
+    public void onLogin(PostLoginEvent e) {
+        get(e.getPlayer());
+    }
+
+    @Subscribe(order = PostOrder.EARLY)
+    public void onServerConnect(ServerPostConnectEvent e) {
+        PlayerSession session = sessions.get(e.getPlayer().getUniqueId());
+        if (session != null) {
+            refresh(session, e.getPlayer());
+        } else {
+            get(e.getPlayer());
+        }
+    }
+
+    @Subscribe(order = PostOrder.LAST)
+    public void onDisconnect(DisconnectEvent e) {
+        sessions.remove(e.getPlayer().getUniqueId());
+    }
+}
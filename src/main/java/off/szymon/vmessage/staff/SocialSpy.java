@@ -0,0 +1,65 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+
+package off.szymon.vmessage.staff;
+
+import com.velocitypowered.api.proxy.Player;
+import off.szymon.vmessage.VMessagePlugin;
+import off.szymon.vmessage.config.ConfigManager;
+import off.szymon.vmessage.session.PermissionIndex;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shows private messages to the players with the {@value PermissionIndex#SOCIAL_SPY} permission that turned it on.
+ * It stays on across rejoins until it is turned off or the proxy restarts.
+ */
+public class SocialSpy {
+
+    private final Set<UUID> enabled = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @return whether the player sees private messages now
+     */
+    public boolean toggle(UUID player) {
+        if (enabled.remove(player)) return false;
+        enabled.add(player);
+        return true;
+    }
+
+    /**
+     * Shows a private message to the spies, except the sender and receiver themselves
+     *
+     * @param sender   the sending player, null for the console
+     * @param receiver the name of the receiver
+     * @param message  the processed MiniMessage content
+     */
+    public void spy(@Nullable Player sender, String receiver, @Nullable UUID receiverId, String message) {
+        if (enabled.isEmpty()) return;
+        String line = null;
+        for (Player spy : VMessagePlugin.get().getPermissionIndex().getAudience(PermissionIndex.SOCIAL_SPY)) {
+            UUID spyId = spy.getUniqueId();
+            if (!enabled.contains(spyId) || spyId.equals(receiverId) || (sender != null && spyId.equals(sender.getUniqueId()))) continue;
+            if (line == null) {
+                line = ConfigManager.get().getRuntime().socialSpyFormat()
+                        .replace("%sender%", sender != null ? sender.getUsername() : "Console")
+                        .replace("%receiver%", receiver)
+                        .replace("%message%", message);
+            }
+            spy.sendRichMessage(line);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+
+package off.szymon.vmessage.staff;
+
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.event.PostOrder;
+import com.velocitypowered.api.event.Subscribe;
+import com.velocitypowered.api.event.connection.DisconnectEvent;
+import com.velocitypowered.api.proxy.Player;
+import off.szymon.vmessage.VMessagePlugin;
+import off.szymon.vmessage.config.ConfigManager;
+import off.szymon.vmessage.config.RuntimeConfig;
+import off.szymon.vmessage.format.PlaceholderResolver;
+import off.szymon.vmessage.format.PlayerPlaceholderResolver;
+import off.szymon.vmessage.format.PlaceholderType;
+import off.szymon.vmessage.format.RenderedMessage;
+import off.szymon.vmessage.session.PermissionIndex;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chat only seen by players with the {@value PermissionIndex#STAFF_CHAT} permission, and the console
+ */
+public class StaffChat {
+
+    // Players whose chat goes to staff chat until they toggle it off
+    private final Set<UUID> toggled = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @return whether the player's chat goes to staff chat now
+     */
+    public boolean toggle(UUID player) {
+        if (toggled.remove(player)) return false;
+        toggled.add(player);
+        return true;
+    }
+
+    /**
+     * @return whether the player's chat should go to staff chat, false once they lost the permission
+     */
+    public boolean isToggled(Player player) {
+        if (!toggled.contains(player.getUniqueId())) return false;
+        if (VMessagePlugin.get().getPermissionIndex().getAudience(PermissionIndex.STAFF_CHAT).contains(player)) return true;
+        toggled.remove(player.getUniqueId());
+        return false;
+    }
+
+    public void send(CommandSource sender, String message) {
+        RuntimeConfig config = ConfigManager.get().getRuntime();
+        RuntimeConfig.StaffChat staffChat = config.staffChat();
+        String processedMessage = VMessagePlugin.get().getBroadcaster()
+                .processPlayerContent(sender, message, staffChat.allowLegacyColorCodes(), staffChat.allowMiniMessage());
+        if (processedMessage == null) return;
+
+        PlaceholderResolver resolver;
+        if (sender instanceof Player player) {
+            String server = player.getCurrentServer()
+                    .map(s -> config.parseAlias(s.getServerInfo().getName()))
+                    .orElse("Unknown");
+            resolver = new PlayerPlaceholderResolver(player, VMessagePlugin.get().getLuckPermsCompatibilityProvider())
+                    .with(PlaceholderType.MESSAGE, RenderedMessage.CONTENT_TAG)
+                    .with(PlaceholderType.SERVER, server);
+        } else {
+            resolver = (type, key) -> switch (type) {
+                case MESSAGE -> RenderedMessage.CONTENT_TAG;
+                case PLAYER, SERVER -> "Console";
+                case PREFIX, SUFFIX, META -> "";
+                case PROVIDER -> VMessagePlugin.get().getPlaceholderRegistry().resolve(key, null);
+                default -> null;
+            };
+        }
+        RenderedMessage rendered = RenderedMessage.of(staffChat.format().render(resolver), processedMessage);
+        VMessagePlugin.get().getServer().getConsoleCommandSource().sendMessage(rendered.component());
+        VMessagePlugin.get().getFanOut().send(rendered.component(),
+                new ArrayList<>(VMessagePlugin.get().getPermissionIndex().getAudience(PermissionIndex.STAFF_CHAT)));
+    }
+
+    @Subscribe(order = PostOrder.LAST)
+    public void onDisconnect(DisconnectEvent e) {
+        toggled.remove(e.getPlayer().getUniqueId());
+    }
+}
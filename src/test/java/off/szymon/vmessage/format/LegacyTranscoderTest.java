@@ -0,0 +1,81 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.format;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares {@link LegacyTranscoder} with the component round trip it replaces, on random input made of the
+ * characters that matter to either of them
+ */
+class LegacyTranscoderTest {
+
+    private static final String ALPHABET = "&&&&#x0123456789abcdefABCDEFklmnorKLMNORgz<<>>/\\:'\" ";
+    private static final int INPUTS = 200_000;
+    // Fixed, so a failure can be reproduced
+    private static final long SEED = 0x5EED;
+
+    @Test
+    void matchesRoundTrip() {
+        SplittableRandom random = new SplittableRandom(SEED);
+        StringBuilder input = new StringBuilder();
+        for (int n = 0; n < INPUTS; n++) {
+            input.setLength(0);
+            int length = random.nextInt(48);
+            for (int i = 0; i < length; i++) {
+                input.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            String text = input.toString();
+            for (int flags = 0; flags < 4; flags++) {
+                boolean legacy = (flags & 1) != 0;
+                boolean miniMessage = (flags & 2) != 0;
+                String expected = roundTrip(text, legacy, miniMessage);
+                String actual = LegacyTranscoder.transcode(text, legacy, miniMessage);
+                assertEquals(expected, actual, () -> "legacy " + legacy + ", MiniMessage " + miniMessage + ", input " + text);
+            }
+        }
+    }
+
+    @Test
+    void escapesTagsAndCodes() {
+        assertEquals("\\<red>hi\\\\", LegacyTranscoder.transcode("<red>hi\\", false, false));
+        assertEquals("<red>hi\\", LegacyTranscoder.transcode("<red>hi\\", false, true));
+        assertEquals("\\<red>\\<b>hi", LegacyTranscoder.transcode("&c<b>hi", true, false));
+        assertEquals("<red>\\<b>hi", LegacyTranscoder.transcode("&c<b>hi", true, true));
+    }
+
+    /**
+     * What {@code processMessageContent} did before {@link LegacyTranscoder}, except that MiniMessage that is not
+     * allowed without legacy codes is escaped like text instead of with {@code escapeTags}
+     */
+    private static String roundTrip(String input, boolean allowLegacyColorCodes, boolean allowMiniMessage) {
+        if (!allowLegacyColorCodes) {
+            return allowMiniMessage ? input : MiniMessage.miniMessage().serialize(Component.text(input));
+        }
+        String result = input;
+        try {
+            Component component = LegacyComponentSerializer.legacyAmpersand().deserialize(input);
+            result = MiniMessage.miniMessage().serialize(component);
+        } catch (Exception ignored) {
+            // keep result as input
+        }
+        return allowMiniMessage ? result : MiniMessage.miniMessage().escapeTags(result);
+    }
+}
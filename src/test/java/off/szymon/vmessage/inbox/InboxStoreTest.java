@@ -0,0 +1,160 @@
+/*
+ * vMessage
+ * Copyright (c) 2025.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * See the LICENSE file in the project root for details.
+ */
+
+package off.szymon.vmessage.inbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InboxStoreTest {
+
+    private static final String BODY = "x".repeat(1000);
+
+    @Test
+    void dropsRecordCutShort(@TempDir Path folder) throws IOException {
+        UUID recipient = UUID.randomUUID();
+        InboxStore store = new InboxStore(folder);
+        store.append(recipient, 1, "first", 0);
+        store.append(recipient, 2, "second", 0);
+        store.append(recipient, 3, "third", 0);
+
+        Path segment = segments(folder).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        store = new InboxStore(folder);
+        assertEquals(2, store.count(recipient));
+        store.append(recipient, 4, "fourth", 0);
+
+        store = new InboxStore(folder);
+        assertEquals(List.of("first", "second", "fourth"), store.take(recipient));
+        assertEquals(0, new InboxStore(folder).count(recipient));
+    }
+
+    @Test
+    void compactsMostlyDeliveredStore(@TempDir Path folder) throws IOException {
+        List<UUID> live = fillAndDeliver(folder);
+        InboxStore store = new InboxStore(folder);
+        store.cleanUp();
+        assertFalse(Files.exists(folder.resolve(InboxStore.COMPACTION_MARKER)));
+        for (UUID recipient : live) {
+            assertEquals(16, store.count(recipient));
+        }
+        assertLive(new InboxStore(folder), live);
+    }
+
+    @Test
+    void finishesCommittedCompactionAfterCrash(@TempDir Path folder, @TempDir Path compacted) throws IOException {
+        List<UUID> live = fillAndDeliver(folder);
+        long firstSegment = crashDuringCompaction(folder, compacted);
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(folder.resolve(InboxStore.COMPACTION_MARKER)))) {
+            out.writeLong(firstSegment);
+        }
+
+        InboxStore store = new InboxStore(folder);
+        assertFalse(Files.exists(folder.resolve(InboxStore.COMPACTION_MARKER)));
+        for (Path segment : segments(folder)) {
+            assertTrue(segmentNumber(segment) >= firstSegment, segment + " was not replaced");
+        }
+        assertLive(store, live);
+    }
+
+    @Test
+    void discardsUncommittedCompactionAfterCrash(@TempDir Path folder, @TempDir Path compacted) throws IOException {
+        List<UUID> live = fillAndDeliver(folder);
+        crashDuringCompaction(folder, compacted);
+
+        InboxStore store = new InboxStore(folder);
+        try (Stream<Path> files = Files.list(folder)) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().endsWith(InboxStore.COMPACTING)));
+        }
+        assertLive(store, live);
+    }
+
+    /**
+     * Fills more than one segment and delivers most of it, without cleaning up
+     *
+     * @return the recipients whose messages are still waiting
+     */
+    private static List<UUID> fillAndDeliver(Path folder) throws IOException {
+        InboxStore store = new InboxStore(folder);
+        List<UUID> recipients = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            UUID recipient = UUID.randomUUID();
+            recipients.add(recipient);
+            for (int n = 0; n < 16; n++) {
+                store.append(recipient, n, n + BODY, 0);
+            }
+        }
+        for (UUID recipient : recipients.subList(0, 80)) {
+            assertEquals(16, store.take(recipient).size());
+        }
+        return new ArrayList<>(recipients.subList(80, 100));
+    }
+
+    /**
+     * Leaves the compacted segments of {@code folder} next to its old ones, as a crash right before they replace
+     * the old ones would
+     *
+     * @return the number of the first compacted segment
+     */
+    private static long crashDuringCompaction(Path folder, Path compacted) throws IOException {
+        for (Path segment : segments(folder)) {
+            Files.copy(segment, compacted.resolve(segment.getFileName()));
+        }
+        new InboxStore(compacted).cleanUp();
+        long firstSegment = Long.MAX_VALUE;
+        for (Path segment : segments(compacted)) {
+            firstSegment = Math.min(firstSegment, segmentNumber(segment));
+            Files.copy(segment, folder.resolve(segment.getFileName() + InboxStore.COMPACTING));
+        }
+        return firstSegment;
+    }
+
+    private static void assertLive(InboxStore store, List<UUID> live) throws IOException {
+        assertEquals(live.size(), store.getRecipientCount());
+        for (UUID recipient : live) {
+            List<String> messages = store.take(recipient);
+            assertEquals(16, messages.size());
+            for (int n = 0; n < 16; n++) {
+                assertEquals(n + BODY, messages.get(n));
+            }
+        }
+    }
+
+    private static List<Path> segments(Path folder) throws IOException {
+        try (Stream<Path> files = Files.list(folder)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".dat")).sorted().toList();
+        }
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(8, name.length() - 4));
+    }
+}